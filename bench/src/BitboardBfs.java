@@ -0,0 +1,196 @@
+import java.util.Arrays;
+
+/**
+ * Bit-parallel breadth-first search for unweighted distance maps. Every row of the map is a run
+ * of longs with one bit per tile, and each search layer is found by dilating the frontier by one
+ * tile in all four directions at once: long shifts with torus wrap along the row, and the rows
+ * above and below. The dilation is masked by the open tiles, passable and not yet reached, so
+ * 64 tiles are handled per operation. Gives the same costs as {@link BfsEngine#bfs} without
+ * weights. Writing out one cost per tile dominates either way, so it does not beat the scalar
+ * search; it is kept with the benchmarks rather than in the bot.
+ */
+public class BitboardBfs {
+    private final int rows;
+
+    private final int cols;
+
+    private final int words;
+
+    private final long lastMask;
+
+    private final short[] map;
+
+    private final long[] passable;
+
+    private int passableVersion = -1;
+
+    private final long[] open;
+
+    private long[] frontier;
+
+    private long[] next;
+
+    private boolean[] frontierRows;
+
+    private boolean[] nextRows;
+
+    private final long[] east;
+
+    private final long[] west;
+
+    /**
+     * Creates new {@link BitboardBfs} object.
+     *
+     * @param rows game map height
+     * @param cols game map width
+     * @param map flat game map of encoded {@link TileData}
+     */
+    public BitboardBfs(int rows, int cols, short[] map) {
+        this.rows = rows;
+        this.cols = cols;
+        this.map = map;
+        words = (cols + 63) >>> 6;
+        int bits = cols & 63;
+        lastMask = bits == 0 ? -1L : (1L << bits) - 1;
+        passable = new long[rows * words];
+        open = new long[rows * words];
+        frontier = new long[rows * words];
+        next = new long[rows * words];
+        frontierRows = new boolean[rows];
+        nextRows = new boolean[rows];
+        east = new long[words];
+        west = new long[words];
+    }
+
+    /**
+     * Breadth-first search without weights. Sources get a cost of 1, every other reached tile
+     * its distance + 1 to the nearest source. Unreached tiles keep a cost of 0.
+     *
+     * @param sources indices of the initial open set
+     * @param count number of indices used in <code>sources</code>
+     * @param terrainVersion number the caller changes whenever water is added to or removed
+     *        from the map, so that the passable tiles are only read again when needed
+     * @param costMap receives the cost of every tile
+     */
+    public void bfs(int[] sources, int count, int terrainVersion, int[][] costMap) {
+        if (terrainVersion != passableVersion) {
+            readPassable();
+            passableVersion = terrainVersion;
+        }
+        System.arraycopy(passable, 0, open, 0, open.length);
+        for (int row = 0; row < rows; row++) {
+            Arrays.fill(costMap[row], 0);
+        }
+        Arrays.fill(frontier, 0);
+        Arrays.fill(frontierRows, false);
+
+        for (int i = 0; i < count; i++) {
+            int row = sources[i] / cols;
+            int col = sources[i] - row * cols;
+            frontier[row * words + (col >>> 6)] |= 1L << col;
+            open[row * words + (col >>> 6)] &= ~(1L << col);
+            frontierRows[row] = true;
+            costMap[row][col] = 1;
+        }
+
+        int cost = 2;
+        boolean active = count > 0;
+        while (active) {
+            active = dilate(cost, costMap);
+            long[] swap = frontier;
+            frontier = next;
+            next = swap;
+            boolean[] swapRows = frontierRows;
+            frontierRows = nextRows;
+            nextRows = swapRows;
+            cost++;
+        }
+    }
+
+    private void readPassable() {
+        for (int row = 0; row < rows; row++) {
+            int offset = row * cols;
+            for (int word = 0; word < words; word++) {
+                long bitsOfWord = 0;
+                int base = word << 6;
+                int end = Math.min(cols - base, 64);
+                for (int bit = 0; bit < end; bit++) {
+                    if (TileData.getType(map[offset + base + bit]).isPassable()) {
+                        bitsOfWord |= 1L << bit;
+                    }
+                }
+                passable[row * words + word] = bitsOfWord;
+            }
+        }
+    }
+
+    /**
+     * Computes the next frontier, the open tiles next to the current frontier, and writes out
+     * their cost. Rows with no frontier in or next to them are skipped.
+     *
+     * @return <code>false</code> if the next frontier is empty
+     */
+    private boolean dilate(int cost, int[][] costMap) {
+        boolean active = false;
+        for (int row = 0; row < rows; row++) {
+            int rowAbove = row == 0 ? rows - 1 : row - 1;
+            int rowBelow = row == rows - 1 ? 0 : row + 1;
+            int offset = row * words;
+            if (!frontierRows[row] && !frontierRows[rowAbove] && !frontierRows[rowBelow]) {
+                if (nextRows[row]) {
+                    Arrays.fill(next, offset, offset + words, 0);
+                    nextRows[row] = false;
+                }
+                continue;
+            }
+            int above = rowAbove * words;
+            int below = rowBelow * words;
+            if (frontierRows[row]) {
+                shiftRow(offset);
+            } else {
+                Arrays.fill(east, 0);
+                Arrays.fill(west, 0);
+            }
+            boolean rowActive = false;
+            int[] costRow = costMap[row];
+            for (int word = 0; word < words; word++) {
+                long dilated = frontier[above + word] | frontier[below + word]
+                    | east[word] | west[word];
+                long bitsOfWord = dilated & open[offset + word];
+                next[offset + word] = bitsOfWord;
+                if (bitsOfWord != 0) {
+                    open[offset + word] &= ~bitsOfWord;
+                    rowActive = true;
+                    int base = word << 6;
+                    do {
+                        costRow[base + Long.numberOfTrailingZeros(bitsOfWord)] = cost;
+                        bitsOfWord &= bitsOfWord - 1;
+                    } while (bitsOfWord != 0);
+                }
+            }
+            nextRows[row] = rowActive;
+            active |= rowActive;
+        }
+        return active;
+    }
+
+    /**
+     * Fills east and west with the frontier of a row moved by one column, wrapping around the
+     * map edges.
+     */
+    private void shiftRow(int offset) {
+        long[] row = frontier;
+        int last = words - 1;
+        for (int word = 0; word < words; word++) {
+            long carryIn = word == 0 ? 0 : row[offset + word - 1] >>> 63;
+            east[word] = (row[offset + word] << 1) | carryIn;
+            long carryOut = word == last ? 0 : row[offset + word + 1] << 63;
+            west[word] = (row[offset + word] >>> 1) | carryOut;
+        }
+        // the last column moves to the first one and the other way around.
+        int lastBit = (cols - 1) & 63;
+        east[0] |= (row[offset + last] >>> lastBit) & 1L;
+        west[last] |= (row[offset] & 1L) << lastBit;
+        east[last] &= lastMask;
+    }
+}
@@ -0,0 +1,80 @@
+package antsbench;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of the battle prediction functions in {@link Ants}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CombatBenchmark {
+    @Benchmark
+    public HashMap<Tile, List<Tile>> generateNearbyEnemies(MapState state) {
+        return state.ants.generateNearbyEnemies(state.map, state.ants.getAttackRadius2());
+    }
+    
+    @Benchmark
+    public int simulateBattleForArea(MapState state) {
+        return state.ants.simulateBattleForArea(state.origin, state.map, state.nearbyEnemies,
+            state.ants.getAttackRadius2());
+    }
+    
+    @Benchmark
+    public int predictCombat(MapState state) {
+        CombatEngine combat = state.ants.predictCombat(state.orders);
+        int count = combat.getAntCount();
+        state.ants.releaseCombatEngine(combat);
+        return count;
+    }
+    
+    @Benchmark
+    public int applyMove(MapState state) {
+        CombatEngine combat = state.combat;
+        combat.applyMove(state.moveFrom, state.moveTo);
+        int score = combat.simulateBattleForArea(state.moveTo);
+        combat.undoMove();
+        return score;
+    }
+    
+    @Benchmark
+    public int simulateBattleForAreaArray(MapState state) {
+        return state.combat.simulateBattleForArea(state.ants.getIndex(state.origin));
+    }
+    
+    @Benchmark
+    public int combatSearch(MapState state) {
+        CombatSearch search = new CombatSearch(state.ants, state.combat, state.battleAnts,
+            state.battleEnemies);
+        search.search(Long.MAX_VALUE);
+        return search.getBestScore();
+    }
+    
+    @Benchmark
+    public List<BattleClusters.Cluster> partitionBattles(MapState state) {
+        return state.clusters.partition(state.enemyAnts, state.myAnts);
+    }
+    
+    @Benchmark
+    public InfluenceMap computeInfluence(MapState state) {
+        state.influence.compute(state.map);
+        return state.influence;
+    }
+    
+    @Benchmark
+    public short[] constructPredictionMap(MapState state) {
+        return state.ants.constructPredictionMap(state.orders);
+    }
+}
@@ -0,0 +1,215 @@
+package antsbench;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Generated game state shared by the benchmarks. Ants are packed into a square region in the
+ * middle of the map so that larger ant counts also produce real fights.
+ */
+@State(Scope.Benchmark)
+public class MapState {
+    private static final double WATER_DENSITY = 0.1;
+    
+    private static final int UNSEEN_WEIGHT = 10;
+    
+    @Param({"50", "100", "200", "512"})
+    public int size;
+    
+    @Param({"10", "100", "1000"})
+    public int antCount;
+    
+    public Ants ants;
+    
+    public List<Tile> myAnts;
+    
+    public List<Tile> enemyAnts;
+    
+    public int[] myAntIndices;
+    
+    public int[] hillIndices;
+    
+    public BitboardBfs bitboardBfs;
+    
+    public Tile food;
+    
+    public List<Tile> foods;
+    
+    public int[] labels;
+    
+    public Set<Tile> myAntSet;
+    
+    public Set<Tile> movedAnts;
+    
+    public DistanceField myAntsField;
+    
+    public boolean moved;
+    
+    public Tile origin;
+    
+    public int[][] weights;
+    
+    public int[][][] costMaps;
+    
+    public int[] modifiers = { 10, 1, 1 };
+    
+    /** Weights of the combat composite, which skips the enemy ants map. */
+    public int[] combatModifiers = { 10, 0, 1 };
+    
+    public int[][] compositeMap;
+    
+    public short[] map;
+    
+    public HashMap<Tile, List<Tile>> nearbyEnemies;
+    
+    public CombatEngine combat;
+    
+    /** An ordered ant of the prediction map and the tile it came from. */
+    public int moveFrom, moveTo;
+    
+    /** Ants of both sides around the origin, as taking part in a battle. */
+    public List<Tile> battleAnts, battleEnemies;
+    
+    public BattleClusters clusters;
+    
+    public InfluenceMap influence;
+    
+    public Map<Tile, Tile> orders;
+    
+    @Setup
+    public void setup() {
+        Random random = new Random(size * 31L + antCount);
+        ants = new Ants(3000, 500, size, size, 500, 77, 5, 1);
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                if (random.nextDouble() < WATER_DENSITY) {
+                    ants.update(Ilk.WATER, new Tile(row, col));
+                }
+            }
+        }
+        
+        int side = Math.min(size, Math.max(10, (int)Math.sqrt(antCount * 4.0)));
+        int corner = (size - side) / 2;
+        myAnts = new ArrayList<Tile>();
+        enemyAnts = new ArrayList<Tile>();
+        for (int i = 0; i < antCount; i++) {
+            Tile tile = randomLand(random, corner, side);
+            if (i % 2 == 0) {
+                ants.update(Ilk.MY_ANT, tile, 0);
+                myAnts.add(tile);
+            } else {
+                ants.update(Ilk.ENEMY_ANT, tile, 1 + i % 3);
+                enemyAnts.add(tile);
+            }
+        }
+        foods = new ArrayList<Tile>();
+        for (int i = 0; i < size * size / 100; i++) {
+            food = randomLand(random, 0, size);
+            ants.update(Ilk.FOOD, food);
+            foods.add(food);
+        }
+        labels = new int[size * size];
+        ants.updateHills(0, randomLand(random, 0, size));
+        ants.updateHills(1, randomLand(random, 0, size));
+        myAntIndices = new int[myAnts.size()];
+        for (int i = 0; i < myAntIndices.length; i++) {
+            myAntIndices[i] = ants.getIndex(myAnts.get(i));
+        }
+        hillIndices = new int[ants.getEnemyHills().size()];
+        int hill = 0;
+        for (Tile enemyHill : ants.getEnemyHills()) {
+            hillIndices[hill++] = ants.getIndex(enemyHill);
+        }
+        bitboardBfs = new BitboardBfs(size, size, ants.copyMap());
+        ants.setVision();
+        ants.loadNearbyEnemies();
+        origin = enemyAnts.get(0);
+        
+        // same ants with a few of them moved by one tile, as between two turns
+        myAntSet = new HashSet<Tile>(myAnts);
+        movedAnts = new HashSet<Tile>();
+        for (int i = 0; i < myAnts.size(); i++) {
+            Tile newLoc = ants.getTile(myAnts.get(i), Aim.values()[i % 4]);
+            movedAnts.add(i % 10 == 0 && ants.getIlk(newLoc).isPassable() ? newLoc : myAnts.get(i));
+        }
+        myAntsField = ants.createDistanceField();
+        
+        weights = ants.createEmptyCostMap();
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                weights[row][col] = random.nextInt(UNSEEN_WEIGHT + 1);
+            }
+        }
+        compositeMap = new int[size][size];
+        // copied out of the cost map pool, which the benchmarks release on every call
+        costMaps = new int[][][] {
+            copy(ants.bfs(ants.getEnemyHills(), null)),
+            copy(ants.bfs(ants.getEnemyAnts(), null)),
+            copy(ants.bfs(myAnts, weights, false))
+        };
+        
+        orders = new HashMap<Tile, Tile>();
+        for (Tile ant : myAnts) {
+            for (Aim direction : Aim.values()) {
+                Tile newLoc = ants.getTile(ant, direction);
+                if (ants.getIlk(newLoc).isUnoccupied() && !orders.containsKey(newLoc)) {
+                    orders.put(newLoc, ant);
+                    break;
+                }
+            }
+        }
+        map = ants.constructPredictionMap(orders);
+        nearbyEnemies = ants.generateNearbyEnemies(map, ants.getAttackRadius2());
+        combat = new CombatEngine(size, size, ants.getTilesFromRadius(ants.getAttackRadius2()));
+        combat.beginLoad(map);
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                combat.addAnt(ants.getIndex(row, col));
+            }
+        }
+        combat.finishLoad();
+        Map.Entry<Tile, Tile> order = orders.entrySet().iterator().next();
+        moveFrom = ants.getIndex(order.getKey());
+        moveTo = ants.getIndex(order.getValue());
+        clusters = new BattleClusters(ants);
+        influence = new InfluenceMap(size, size, ants.getExtendedAttackRadius2());
+        battleAnts = new ArrayList<Tile>();
+        battleEnemies = new ArrayList<Tile>();
+        for (Tile offset : ants.getExtendedCombatOffsets()) {
+            Tile loc = ants.getTile(origin, offset);
+            Ilk ilk = TileData.getType(map[ants.getIndex(loc)]);
+            if (ilk == Ilk.MY_ANT && battleAnts.size() < 5) {
+                battleAnts.add(loc);
+            } else if (ilk == Ilk.ENEMY_ANT && battleEnemies.size() < 6) {
+                battleEnemies.add(loc);
+            }
+        }
+    }
+    
+    private static int[][] copy(int[][] costMap) {
+        int[][] copy = new int[costMap.length][];
+        for (int row = 0; row < costMap.length; row++) {
+            copy[row] = costMap[row].clone();
+        }
+        return copy;
+    }
+    
+    private Tile randomLand(Random random, int corner, int side) {
+        while (true) {
+            Tile tile = new Tile(corner + random.nextInt(side), corner + random.nextInt(side));
+            if (ants.getIlk(tile) == Ilk.LAND) {
+                return tile;
+            }
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package antsbench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of the search algorithms in {@link Ants}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PathfindingBenchmark {
+    private static final int ILK_SEARCH_CAP = 10;
+    
+    @Benchmark
+    public int[][] bfsList(MapState state) {
+        state.ants.releaseCostMaps();
+        return state.ants.bfs(state.myAnts, null);
+    }
+    
+    @Benchmark
+    public int[][] bfsSet(MapState state) {
+        state.ants.releaseCostMaps();
+        return state.ants.bfs(state.ants.getMyAnts(), null);
+    }
+    
+    @Benchmark
+    public int[][] bfsTile(MapState state) {
+        state.ants.releaseCostMaps();
+        return state.ants.bfs(state.origin, null);
+    }
+    
+    @Benchmark
+    public int[][] bfsIndices(MapState state) {
+        state.ants.releaseCostMaps();
+        return state.ants.bfs(state.myAntIndices, state.myAntIndices.length, null);
+    }
+    
+    @Benchmark
+    public int[][] bfsWeighted(MapState state) {
+        state.ants.releaseCostMaps();
+        return state.ants.bfs(state.myAnts, state.weights, false);
+    }
+    
+    @Benchmark
+    public int[][] weightedBfs(MapState state) {
+        state.ants.releaseCostMaps();
+        return state.ants.weightedBfs(state.myAnts, state.weights);
+    }
+
+    @Benchmark
+    public int[][] labeledBfs(MapState state) {
+        state.ants.releaseCostMaps();
+        return state.ants.labeledBfs(state.foods, state.labels);
+    }
+
+    @Benchmark
+    public DistanceField repairedBfs(MapState state) {
+        state.moved = !state.moved;
+        return state.ants.updateDistanceField(state.myAntsField,
+            state.moved ? state.movedAnts : state.myAntSet);
+    }
+
+    @Benchmark
+    public int[][] bitBfs(MapState state) {
+        state.ants.releaseCostMaps();
+        int[][] costMap = state.ants.getCostMapPool().acquire();
+        state.bitboardBfs.bfs(state.myAntIndices, state.myAntIndices.length, 0, costMap);
+        return costMap;
+    }
+
+    @Benchmark
+    public int[][] bitBfsHills(MapState state) {
+        state.ants.releaseCostMaps();
+        int[][] costMap = state.ants.getCostMapPool().acquire();
+        state.bitboardBfs.bfs(state.hillIndices, state.hillIndices.length, 0, costMap);
+        return costMap;
+    }
+
+    @Benchmark
+    public int[][] bfsHills(MapState state) {
+        state.ants.releaseCostMaps();
+        return state.ants.bfs(state.ants.getEnemyHills(), null);
+    }
+
+    @Benchmark
+    public int[][] combatBfs(MapState state) {
+        state.ants.releaseCostMaps();
+        return state.ants.combatBfs(new ArrayList<Tile>(state.enemyAnts), null);
+    }
+    
+    @Benchmark
+    public Tile bfsNearestTileType(MapState state) {
+        return state.ants.bfsNearestTileType(state.food, Ilk.MY_ANT);
+    }
+    
+    @Benchmark
+    public Tile bfsNearestTileTypeBounded(MapState state) {
+        return state.ants.bfsNearestTileType(state.origin, Ilk.MY_ANT, 4);
+    }
+    
+    @Benchmark
+    public List<Tile> bfsIlkSearch(MapState state) {
+        return state.ants.bfsIlkSearch(state.origin, ILK_SEARCH_CAP, Ilk.MY_ANT);
+    }
+    
+    @Benchmark
+    public int[][] constructCompositeMap(MapState state) {
+        state.ants.releaseCostMaps();
+        return state.ants.constructCompositeMap(state.costMaps, state.modifiers);
+    }
+    
+    @Benchmark
+    public int[][] constructCompositeMapInto(MapState state) {
+        return state.ants.constructCompositeMap(state.costMaps, state.combatModifiers,
+            state.compositeMap);
+    }
+}
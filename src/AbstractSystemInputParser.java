@@ -1,4 +1,6 @@
+import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Scanner;
 import java.util.regex.Pattern;
@@ -11,22 +13,34 @@ public abstract class AbstractSystemInputParser extends AbstractSystemInputReade
     
     private static final String GO = "go";
     
+    private static final String END = "end";
+    
     private static final char COMMENT_CHAR = '#';
     
+    private static final Charset CHARSET = Charset.forName("ISO-8859-1");
+    
+    /** Marks a missing or malformed integer while parsing raw bytes. */
+    private static final int NO_INT = Integer.MIN_VALUE;
+    
+    /** Number of ints used by a single packed update: token, row, col, owner. */
+    private static final int UPDATE_SIZE = 4;
+    
     private final List<String> input = new ArrayList<String>();
     
+    private int[] updates = new int[UPDATE_SIZE * 1024];
+    
+    private int updatesLength;
+    
+    private int position;
+    
+    private boolean setupParsed;
+    
     private enum SetupToken {
         LOADTIME, TURNTIME, ROWS, COLS, TURNS, VIEWRADIUS2, ATTACKRADIUS2, SPAWNRADIUS2;
         
         private static final Pattern PATTERN = compilePattern(SetupToken.class);
     }
     
-    private enum UpdateToken {
-        W, A, F, D, H;
-        
-        private static final Pattern PATTERN = compilePattern(UpdateToken.class);
-    }
-    
     private static Pattern compilePattern(Class<? extends Enum> clazz) {
         StringBuilder builder = new StringBuilder("(");
         for (Enum enumConstant : clazz.getEnumConstants()) {
@@ -39,6 +53,38 @@ public abstract class AbstractSystemInputParser extends AbstractSystemInputReade
         return Pattern.compile(builder.toString());
     }
     
+    /**
+     * Parses update lines directly from raw bytes, without creating any intermediate objects.
+     * Setup lines are collected as strings until the setup keyword appears.
+     */
+    @Override
+    public void processLine(byte[] bytes, int length) {
+        int start = skipWhitespace(bytes, 0, length);
+        int end = trimEnd(bytes, start, length);
+        if (start == end) {
+            return;
+        }
+        if (matchesKeyword(bytes, start, end, READY)) {
+            parseSetup(input);
+            setupParsed = true;
+            updatesLength = 0;
+            doTurn();
+            finishTurn();
+            input.clear();
+        } else if (matchesKeyword(bytes, start, end, GO)) {
+            dispatchUpdates();
+            doTurn();
+            finishTurn();
+            input.clear();
+        } else if (matchesKeyword(bytes, start, end, END)) {
+            endGame();
+        } else if (setupParsed) {
+            parseUpdateLine(bytes, start, end);
+        } else {
+            input.add(new String(bytes, start, end - start, CHARSET).toLowerCase());
+        }
+    }
+    
     /**
      * Collects lines read from system input stream until a keyword appears and then parses them.
      */
@@ -54,6 +100,8 @@ public abstract class AbstractSystemInputParser extends AbstractSystemInputReade
             doTurn();
             finishTurn();
             input.clear();
+        } else if (line.equals(END)) {
+            endGame();
         } else if (!line.isEmpty()) {
             input.add(line);
         }
@@ -123,47 +171,86 @@ public abstract class AbstractSystemInputParser extends AbstractSystemInputReade
      * @param input update information
      */
     public void parseUpdate(List<String> input) {
-        beforeUpdate();
         for (String line : input) {
-            line = removeComment(line);
-            if (line.isEmpty()) {
-                continue;
-            }
-            Scanner scanner = new Scanner(line);
-            if (!scanner.hasNext()) {
-                continue;
+            byte[] bytes = line.getBytes(CHARSET);
+            parseUpdateLine(bytes, 0, bytes.length);
+        }
+        dispatchUpdates();
+    }
+    
+    /**
+     * Parses a single update line and appends it to the pending updates. Lines which are not
+     * well-formed updates are ignored.
+     * 
+     * @param bytes line contents
+     * @param start index of the first non-whitespace byte
+     * @param end index just past the last non-whitespace byte
+     */
+    private void parseUpdateLine(byte[] bytes, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (bytes[i] == COMMENT_CHAR) {
+                end = trimEnd(bytes, start, i);
+                break;
             }
-            String token = scanner.next().toUpperCase();
-            if (!UpdateToken.PATTERN.matcher(token).matches()) {
-                continue;
+        }
+        // update tokens are a single character followed by whitespace
+        if (start == end || (start + 1 < end && !isWhitespace(bytes[start + 1]))) {
+            return;
+        }
+        int token = toLowerCase(bytes[start]);
+        if (token != 'w' && token != 'a' && token != 'f' && token != 'd' && token != 'h') {
+            return;
+        }
+        position = start + 1;
+        int row = nextInt(bytes, end);
+        int col = nextInt(bytes, end);
+        if (row == NO_INT || col == NO_INT) {
+            return;
+        }
+        int owner = -1;
+        if (token == 'a' || token == 'd' || token == 'h') {
+            owner = nextInt(bytes, end);
+            if (owner == NO_INT) {
+                return;
             }
-            UpdateToken updateToken = UpdateToken.valueOf(token);
-            int row = scanner.nextInt();
-            int col = scanner.nextInt();
-            switch (updateToken) {
-                case W:
+        }
+        if (updatesLength + UPDATE_SIZE > updates.length) {
+            updates = Arrays.copyOf(updates, updates.length * 2);
+        }
+        updates[updatesLength++] = token;
+        updates[updatesLength++] = row;
+        updates[updatesLength++] = col;
+        updates[updatesLength++] = owner;
+    }
+    
+    /**
+     * Applies all pending updates to the game state in the order they were received.
+     */
+    private void dispatchUpdates() {
+        beforeUpdate();
+        for (int i = 0; i < updatesLength; i += UPDATE_SIZE) {
+            int row = updates[i + 1];
+            int col = updates[i + 2];
+            int owner = updates[i + 3];
+            switch (updates[i]) {
+                case 'w':
                     addWater(row, col);
                 break;
-                case A:
-                    if (scanner.hasNextInt()) {
-                        addAnt(row, col, scanner.nextInt());
-                    }
+                case 'a':
+                    addAnt(row, col, owner);
                 break;
-                case F:
+                case 'f':
                     addFood(row, col);
                 break;
-                case D:
-                    if (scanner.hasNextInt()) {
-                        removeAnt(row, col, scanner.nextInt());
-                    }
+                case 'd':
+                    removeAnt(row, col, owner);
                 break;
-                case H:
-                    if (scanner.hasNextInt()) {
-                        addHill(row, col, scanner.nextInt());
-                    }
+                case 'h':
+                    addHill(row, col, owner);
                 break;
             }
         }
+        updatesLength = 0;
         afterUpdate();
     }
     
@@ -242,6 +329,12 @@ public abstract class AbstractSystemInputParser extends AbstractSystemInputReade
      */
     public abstract void doTurn();
     
+    /**
+     * Enables performing actions once the game engine has announced the end of the game.
+     */
+    public void endGame() {
+    }
+    
     /**
      * Finishes turn.
      */
@@ -260,4 +353,70 @@ public abstract class AbstractSystemInputParser extends AbstractSystemInputReade
         }
         return lineWithoutComment;
     }
+    
+    /**
+     * Reads the next whitespace separated integer, starting at the current parse position.
+     * 
+     * @return parsed value or {@link #NO_INT} if the next token is missing or not an integer
+     */
+    private int nextInt(byte[] bytes, int end) {
+        int i = skipWhitespace(bytes, position, end);
+        if (i == end) {
+            return NO_INT;
+        }
+        boolean negative = false;
+        if (bytes[i] == '-' || bytes[i] == '+') {
+            negative = bytes[i] == '-';
+            i++;
+        }
+        int digitsStart = i;
+        int value = 0;
+        while (i < end && !isWhitespace(bytes[i])) {
+            int digit = bytes[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return NO_INT;
+            }
+            value = value * 10 + digit;
+            i++;
+        }
+        if (i == digitsStart) {
+            return NO_INT;
+        }
+        position = i;
+        return negative ? -value : value;
+    }
+    
+    private static boolean matchesKeyword(byte[] bytes, int start, int end, String keyword) {
+        if (end - start != keyword.length()) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if (toLowerCase(bytes[i]) != keyword.charAt(i - start)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private static int skipWhitespace(byte[] bytes, int start, int end) {
+        while (start < end && isWhitespace(bytes[start])) {
+            start++;
+        }
+        return start;
+    }
+    
+    private static int trimEnd(byte[] bytes, int start, int end) {
+        while (end > start && isWhitespace(bytes[end - 1])) {
+            end--;
+        }
+        return end;
+    }
+    
+    private static boolean isWhitespace(byte b) {
+        return (b & 0xff) <= ' ';
+    }
+    
+    private static int toLowerCase(byte b) {
+        return b >= 'A' && b <= 'Z' ? b + ('a' - 'A') : b & 0xff;
+    }
 }
@@ -1,36 +1,107 @@
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
 
 /**
  * Handles system input stream reading.
  */
 public abstract class AbstractSystemInputReader {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final Charset CHARSET = Charset.forName("ISO-8859-1");
+
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+
+    private byte[] line = new byte[256];
+
+    private int lineLength;
+
+    private OutputStream recording;
+
     /**
-     * Reads system input stream line by line. All characters are converted to lower case and each
-     * line is passed for processing to {@link #processLine(String)} method.
-     * 
+     * Reads system input stream line by line. Each line is passed for processing to
+     * {@link #processLine(byte[], int)} method. If a recording stream has been set, the raw input
+     * is copied to it before being processed.
+     *
      * @throws IOException if an I/O error occurs
      */
     public void readSystemInput() throws IOException {
-    	//InputStream input = new FileInputStream("data");
     	InputStream input = System.in;
-        StringBuilder line = new StringBuilder();
-        int c;              
-        while ((c = input.read()) >= 0) {
+        int length;
+        while ((length = input.read(buffer)) >= 0) {
+            if (recording != null) {
+                recording.write(buffer, 0, length);
+                recording.flush();
+            }
+            processInput(buffer, length);
+        }
+    }
+
+    /**
+     * Reads previously recorded input line by line, exactly as {@link #readSystemInput()} would
+     * have read it from the system input stream.
+     *
+     * @param input recorded input, read from its current position up to its limit
+     */
+    public void readInput(ByteBuffer input) {
+        while (input.hasRemaining()) {
+            int length = Math.min(input.remaining(), buffer.length);
+            input.get(buffer, 0, length);
+            processInput(buffer, length);
+        }
+    }
+
+    /**
+     * Sets the stream which receives a copy of the raw system input, so that a game can be
+     * replayed later.
+     *
+     * @param recording stream receiving the raw input, or <code>null</code> to stop recording
+     */
+    public void setRecording(OutputStream recording) {
+        this.recording = recording;
+    }
+
+    /**
+     * Splits a chunk of raw input into lines. Bytes of an unfinished line are kept until the
+     * next chunk completes it.
+     *
+     * @param bytes raw input bytes
+     * @param length number of valid bytes in <code>bytes</code>
+     */
+    protected void processInput(byte[] bytes, int length) {
+        for (int i = 0; i < length; i++) {
+            byte c = bytes[i];
             if (c == '\r' || c == '\n') {
-                processLine(line.toString().toLowerCase().trim());
-                line.setLength(0);
+                processLine(line, lineLength);
+                lineLength = 0;
             } else {
-                line = line.append((char)c);
+                if (lineLength == line.length) {
+                    line = Arrays.copyOf(line, line.length * 2);
+                }
+                line[lineLength++] = c;
             }
         }
     }
-    
+
+    /**
+     * Process a raw line read out by {@link #readSystemInput()} method. By default all characters
+     * are converted to lower case and the trimmed line is passed to {@link #processLine(String)}.
+     * The contents of <code>bytes</code> are only valid until this method returns.
+     *
+     * @param bytes line contents, without the line terminator
+     * @param length number of valid bytes in <code>bytes</code>
+     */
+    public void processLine(byte[] bytes, int length) {
+        processLine(new String(bytes, 0, length, CHARSET).toLowerCase().trim());
+    }
+
     /**
      * Process a line read out by {@link #readSystemInput()} method in a way defined by subclass
      * implementation.
-     * 
+     *
      * @param line single, trimmed line of system input
      */
     public abstract void processLine(String line);
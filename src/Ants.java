@@ -7,6 +7,11 @@ public class Ants {
     /** Maximum map size. */
     public static final int MAX_MAP_SIZE = 256 * 2;
 
+    /** Number of neighbors of each tile, one per {@link Aim}. */
+    public static final int DIRECTIONS = 4;
+
+    private static final Aim[] AIMS = Aim.values();
+
     private final int loadTime;
     private final int turnTime;
 
@@ -28,7 +33,44 @@ public class Ants {
 
     private long turnStartTime;
 
-    private final TileData map[][];    
+    /** Canonical tile of every location, indexed by row * cols + col. */
+    private final Tile tiles[];
+
+    /** Index of the neighbor of every location in every direction, at index * 4 + aim. */
+    private final int neighbors[];
+
+    /** Flat map of encoded {@link TileData}, indexed by row * cols + col. */
+    private final short map[];    
+
+    /** Indices of the tiles which have turned into water, in the order they did. */
+    private final int waterTiles[];
+    private int waterCount;
+    private int antsVersion;
+    private final CostMapPool costMapPool;
+    private static final CompositeBuilder compositeBuilder = CompositeBuilder.create();
+
+    /**
+     * Search scratch space, borrowed by each search and handed back when
+     * it is done, so searches can run concurrently.
+     */
+    private final ScratchPool<BfsEngine> bfsEngines = new ScratchPool<BfsEngine>() {
+    	@Override
+    	protected BfsEngine create() {
+    		return new BfsEngine(rows, cols, neighbors, map);
+    	}
+    };
+    private final ScratchPool<CombatEngine> combatEngines = new ScratchPool<CombatEngine>() {
+    	@Override
+    	protected CombatEngine create() {
+    		return new CombatEngine(rows, cols, combatOffsets);
+    	}
+    };
+    private final ScratchPool<int[]> sourceBuffers = new ScratchPool<int[]>() {
+    	@Override
+    	protected int[] create() {
+    		return new int[64];
+    	}
+    };
 
     private final Set<Tile> myAnts = new HashSet<Tile>();
     private final Set<Tile> enemyAnts = new HashSet<Tile>();
@@ -36,7 +78,12 @@ public class Ants {
     private final Set<Tile> enemyHills = new HashSet<Tile>();
     private final Set<Tile> foodTiles = new HashSet<Tile>();
     private final Set<Order> orders = new HashSet<Order>();
-    private HashMap<Tile, List<Tile>> nearbyEnemies;
+    private final OrderBuffer orderBuffer = new OrderBuffer();
+    private CombatEngine nearbyEnemies;
+    private InfluenceMap attackInfluence;
+    private InfluenceMap extendedAttackInfluence;
+    private int attackInfluenceVersion = -1;
+    private int extendedAttackInfluenceVersion = -1;
 
     /**
      * Creates new {@link Ants} object.
@@ -61,11 +108,28 @@ public class Ants {
         this.attackRadius2 = attackRadius2;
         this.extendedAttackRadius2 = (int) Math.pow((Math.sqrt(attackRadius2)+2) , 2);
         this.spawnRadius2 = spawnRadius2;
-        map = new TileData[rows][cols];
-        for (TileData[] row : map) {
-            Arrays.fill(row, new TileData(Ilk.LAND));
+        map = new short[rows * cols];
+        Arrays.fill(map, TileData.LAND);
+        waterTiles = new int[rows * cols];
+        tiles = new Tile[rows * cols];
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                tiles[getIndex(row, col)] = new Tile(row, col);
+            }
+        }
+        neighbors = new int[rows * cols * DIRECTIONS];
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                for (Aim direction : AIMS) {
+                    int neighborRow = (row + direction.getRowDelta() + rows) % rows;
+                    int neighborCol = (col + direction.getColDelta() + cols) % cols;
+                    neighbors[getIndex(row, col) * DIRECTIONS + direction.ordinal()] =
+                        getIndex(neighborRow, neighborCol);
+                }
+            }
         }
                 
+        costMapPool = new CostMapPool(rows, cols);
         visible = new boolean[rows][cols];
         for (boolean[] row : visible) {
             Arrays.fill(row, false);
@@ -178,7 +242,11 @@ public class Ants {
      * @param owner of this tile.
      */
     public void update(Ilk ilk, Tile tile, int owner) {
-    	map[tile.getRow()][tile.getCol()] = new TileData(ilk, owner);
+    	int index = getIndex(tile);
+    	if(ilk == Ilk.WATER && TileData.getType(map[index]) != Ilk.WATER) {
+    		waterTiles[waterCount++] = index;
+    	}
+    	setTileData(tile, TileData.encode(ilk, owner));
     	
         switch (ilk) {
             case FOOD:
@@ -207,7 +275,8 @@ public class Ants {
     }
 
     /**
-     * Issues an order by sending it to the system output.
+     * Issues an order by queueing it in the order buffer, which is sent to the system output
+     * when the turn is finished.
      * 
      * @param myAnt map tile with my ant
      * @param direction direction in which to move my ant
@@ -215,7 +284,7 @@ public class Ants {
     public void issueOrder(Tile myAnt, Aim direction) {
         Order order = new Order(myAnt, direction);
         orders.add(order);
-        System.out.println(order);
+        orderBuffer.append(myAnt.getRow(), myAnt.getCol(), direction);
     }
     
     /** Returns ArrayList of defense tile offsets. **/
@@ -242,9 +311,10 @@ public class Ants {
      */
     public void clearMyAnts() {
         for (Tile myAnt : myAnts) {
-            map[myAnt.getRow()][myAnt.getCol()] = new TileData(Ilk.LAND);
+            map[getIndex(myAnt)] = TileData.LAND;
         }
         myAnts.clear();
+        antsVersion++;
     }
 
     /**
@@ -252,9 +322,10 @@ public class Ants {
      */
     public void clearEnemyAnts() {
         for (Tile enemyAnt : enemyAnts) {
-            map[enemyAnt.getRow()][enemyAnt.getCol()] = new TileData(Ilk.LAND);
+            map[getIndex(enemyAnt)] = TileData.LAND;
         }
         enemyAnts.clear();
+        antsVersion++;
     }
     
 
@@ -263,7 +334,7 @@ public class Ants {
      */
     public void clearFood() {
         for (Tile food : foodTiles) {
-            map[food.getRow()][food.getCol()] = new TileData(Ilk.LAND);
+            map[getIndex(food)] = TileData.LAND;
         }
         foodTiles.clear();
     }
@@ -287,11 +358,9 @@ public class Ants {
      */
     public void clearDeadAnts() {
         //currently we do not have list of dead ants, so iterate over all map
-        for (int row = 0; row < rows; row++) {
-            for (int col = 0; col < cols; col++) {
-                if (map[row][col].getType() == Ilk.DEAD) {
-                    map[row][col] = new TileData(Ilk.LAND);
-                }
+        for (int i = 0; i < map.length; i++) {
+            if (TileData.getType(map[i]) == Ilk.DEAD) {
+                map[i] = TileData.LAND;
             }
         }
     }
@@ -315,20 +384,125 @@ public class Ants {
      * Finds all nearby enemies for the standard map of ants with attackRadius2.
      */
     public void loadNearbyEnemies() {
-    	nearbyEnemies = generateNearbyEnemies(map, attackRadius2);
+    	if(nearbyEnemies == null) {
+    		nearbyEnemies = new CombatEngine(rows, cols, combatOffsets);
+    	}
+    	nearbyEnemies.beginLoad(map);
+    	addAnts(nearbyEnemies, myAnts);
+    	addAnts(nearbyEnemies, enemyAnts);
+    	nearbyEnemies.finishLoad();
+    }
+    
+    /**
+     * Finds all nearby enemies (with attackRadius2) after the orders passed
+     * in, without building a prediction map: the current ants are loaded and
+     * each order is applied as a move, which can be undone again to try
+     * other orders. The engine is borrowed and must be handed back with
+     * "releaseCombatEngine" once the caller is done with it.
+     */
+    public CombatEngine predictCombat(Map<Tile, Tile> orders) {
+    	CombatEngine engine = combatEngines.acquire();
+    	engine.beginLoad(map);
+    	addAnts(engine, myAnts);
+    	addAnts(engine, enemyAnts);
+    	engine.finishLoad();
+    	for(Map.Entry<Tile, Tile> order : orders.entrySet()) {
+    		engine.applyMove(getIndex(order.getValue()), getIndex(order.getKey()));
+    	}
+    	return engine;
+    }
+    
+    /**
+     * Hands back an engine returned by "predictCombat", which must not
+     * be used anymore.
+     */
+    public void releaseCombatEngine(CombatEngine engine) {
+    	combatEngines.release(engine);
+    }
+    
+    /**
+     * Finds all nearby enemies (with attackRadius2) around the ants passed
+     * in, after the orders of the ants around them. Only ants within
+     * extendedAttackRadius2 of those ants are loaded, and the ants within
+     * extendedAttackRadius2 of these, so the verdicts stay exact for the
+     * ants passed in after one move of theirs and of the enemies next to
+     * them. The engine is borrowed and must be handed back with
+     * "releaseCombatEngine" once the caller is done with it.
+     */
+    public CombatEngine predictCombat(Map<Tile, Tile> orders, Collection<Tile> ants) {
+    	CombatEngine engine = combatEngines.acquire();
+    	engine.beginLoad(map);
+    	for(Tile ant : ants) {
+    		addAntsAround(engine, ant);
+    	}
+    	int nearby = engine.getAntCount();
+    	for(int ant = 0; ant < nearby; ant++) {
+    		addAntsAround(engine, getTile(engine.getCell(ant)));
+    	}
+    	engine.finishLoad();
+    	for(Map.Entry<Tile, Tile> order : orders.entrySet()) {
+    		int from = getIndex(order.getValue());
+    		if(engine.getAnt(from) != -1) {
+    			engine.applyMove(from, getIndex(order.getKey()));
+    		}
+    	}
+    	return engine;
+    }
+    
+    private void addAntsAround(CombatEngine engine, Tile center) {
+    	for(Tile offset : extendedCombatOffsets) {
+    		engine.addAnt(getIndex(getTile(center, offset)));
+    	}
+    }
+    
+    /**
+     * Counts for every tile the ants of each player that can attack it,
+     * i.e. within attackRadius2. Counted once per change of the ants over
+     * the whole map, at O(cells) per player (0 = mine).
+     */
+    public synchronized InfluenceMap getAttackInfluence() {
+    	if(attackInfluence == null) {
+    		attackInfluence = new InfluenceMap(rows, cols, attackRadius2);
+    	}
+    	if(attackInfluenceVersion != antsVersion) {
+    		attackInfluence.compute(map);
+    		attackInfluenceVersion = antsVersion;
+    	}
+    	return attackInfluence;
+    }
+    
+    /**
+     * Counts for every tile the ants of each player within
+     * extendedAttackRadius2, which can attack it after moving.
+     */
+    public synchronized InfluenceMap getExtendedAttackInfluence() {
+    	if(extendedAttackInfluence == null) {
+    		extendedAttackInfluence = new InfluenceMap(rows, cols, extendedAttackRadius2);
+    	}
+    	if(extendedAttackInfluenceVersion != antsVersion) {
+    		extendedAttackInfluence.compute(map);
+    		extendedAttackInfluenceVersion = antsVersion;
+    	}
+    	return extendedAttackInfluence;
+    }
+    
+    private void addAnts(CombatEngine engine, Collection<Tile> ants) {
+    	for(Tile ant : ants) {
+    		engine.addAnt(getIndex(ant));
+    	}
     }
     
     /**
      * Finds all nearby enemies for the specified region only.
      * (uses attackRadius2)
      */
-    public HashMap<Tile, List<Tile>> generateNearbyEnemiesArea(TileData[][] map, 
+    public HashMap<Tile, List<Tile>> generateNearbyEnemiesArea(short[] map, 
     														   Tile origin, Set<Tile> offsets) {
     	HashMap<Tile, List<Tile>> nearbyEnemies = new HashMap<Tile, List<Tile>>();
     	for(Tile offset : offsets) {
     		Tile t = getTile(origin, offset);
-    		TileData td = map[t.getRow()][t.getCol()];
-    		if(td.isAnt()) {
+    		short td = map[getIndex(t)];
+    		if(TileData.isAnt(td)) {
     			List<Tile> enemies = findNearbyEnemies(t, map, attackRadius2);
     			nearbyEnemies.put(t, enemies);
     		}
@@ -336,14 +510,14 @@ public class Ants {
     	return nearbyEnemies;
     }
     
-    public HashMap<Tile, List<Tile>> generateNearbyEnemies(TileData[][] map, int radius2) {
+    public HashMap<Tile, List<Tile>> generateNearbyEnemies(short[] map, int radius2) {
     	HashMap<Tile, List<Tile>> nearbyEnemies = new HashMap<Tile, List<Tile>>();
 
     	for(int row = 0; row < rows; row++) {
     		for(int col = 0; col < cols; col++) {
-    			Tile tile = new Tile(row, col);
-    			TileData td = map[row][col];
-    			if(td.isAnt()) {
+    			Tile tile = getTile(row, col);
+    			short td = map[getIndex(row, col)];
+    			if(TileData.isAnt(td)) {
     				List<Tile> enemies = findNearbyEnemies(tile, map, radius2);
     				nearbyEnemies.put(tile, enemies);
     			}
@@ -356,14 +530,14 @@ public class Ants {
     /**
      * Finds all nearby enemies that are at "radius2" distance from origin tile.
      */
-    public List<Tile> findNearbyEnemies(Tile origin, TileData[][] map, int radius2) {
-    	int owner = map[origin.getRow()][origin.getCol()].getOwner();    	
+    public List<Tile> findNearbyEnemies(Tile origin, short[] map, int radius2) {
+    	int owner = TileData.getOwner(map[getIndex(origin)]);    	
     	List<Tile> enemies = new ArrayList<Tile>();
     	
     	for(Tile offset : getTilesFromRadius(radius2)) {
     		Tile battleLoc = getTile(origin, offset);
-    		TileData td = map[battleLoc.getRow()][battleLoc.getCol()];
-    		if(td.isAnt() && td.getOwner() != owner) {
+    		short td = map[getIndex(battleLoc)];
+    		if(TileData.isAnt(td) && TileData.getOwner(td) != owner) {
     			enemies.add(battleLoc);
     		}    		
     	}
@@ -372,26 +546,30 @@ public class Ants {
     }
     
     
-    public int simulateBattleForArena(Tile origin, int radius2) {
-    	return simulateBattleForArea(origin, map, nearbyEnemies, radius2);
+    /**
+     * Simulates battle on the standard map with attackRadius2.
+     * @return score of enemy deaths - friend deaths.
+     */
+    public int simulateBattleForArena(Tile origin) {
+    	return nearbyEnemies.simulateBattleForArea(getIndex(origin));
     }
     /**
      * Simulates battle for a given area.
      * @return score of enemy deaths - friend deaths.
      */
-    public int simulateBattleForArea(Tile origin, TileData[][] map, 
+    public int simulateBattleForArea(Tile origin, short[] map, 
     		HashMap<Tile, List<Tile>> nearbyEnemies, int radius2) {
     	int friendDeaths = 0;
     	int enemyDeaths = 0;
     	
     	for(Tile offset : getTilesFromRadius(radius2)) {
     		Tile combatLoc = getTile(origin, offset);
-    		TileData td = map[combatLoc.getRow()][combatLoc.getCol()];
-    		if(td.getType() == Ilk.MY_ANT) {
+    		Ilk type = TileData.getType(map[getIndex(combatLoc)]);
+    		if(type == Ilk.MY_ANT) {
     			if(!simulateBattleForAnt(combatLoc, nearbyEnemies))
     				friendDeaths++;
     			
-    		} else if(td.getType() == Ilk.ENEMY_ANT) {
+    		} else if(type == Ilk.ENEMY_ANT) {
     			if(!simulateBattleForAnt(combatLoc, nearbyEnemies))
     				enemyDeaths++;
     		}
@@ -435,14 +613,14 @@ public class Ants {
     /**
      * Constructs map with the new ant locations based on orders passed in.
      */
-    public TileData[][] constructPredictionMap(Map<Tile, Tile> orders) {
-    	TileData[][] predictionMap = copyMap();
+    public short[] constructPredictionMap(Map<Tile, Tile> orders) {
+    	short[] predictionMap = copyMap();
 
     	for(Tile newLoc : orders.keySet()) {    		
     		Tile currLoc = orders.get(newLoc);
-    		TileData antData = predictionMap[currLoc.getRow()][currLoc.getCol()];
-    		predictionMap[currLoc.getRow()][currLoc.getCol()] = new TileData(Ilk.LAND);
-    		predictionMap[newLoc.getRow()][newLoc.getCol()] = antData; 
+    		short antData = predictionMap[getIndex(currLoc)];
+    		predictionMap[getIndex(currLoc)] = TileData.LAND;
+    		predictionMap[getIndex(newLoc)] = antData; 
     	}
     	return predictionMap;
     }
@@ -452,17 +630,35 @@ public class Ants {
      * Generates a complete copy of the current map.
      * @return copy
      */
-    public TileData[][] copyMap() {
-    	TileData[][] copy = new TileData[rows][];
-    	for(int row = 0; row < rows; row++) {
-    		copy[row] = new TileData[cols];
-    		for(int col = 0; col < cols; col++) {
-    			copy[row][col] = map[row][col];
-    		}
-    	}
+    public short[] copyMap() {
+    	short[] copy = new short[map.length];
+    	System.arraycopy(map, 0, copy, 0, map.length);
     	return copy;
     }
     
+    /**
+     * Hands out an empty map of ints from the cost map pool. It is
+     * only valid until the next call to "releaseCostMaps".
+     */
+    public int[][] acquireEmptyCostMap() {
+    	return costMapPool.acquireCleared();
+    }
+    
+    /**
+     * Returns all cost maps handed out by the searches, the
+     * composites and "acquireEmptyCostMap" to the pool, to be
+     * reused by the next turn. Call once at the beginning of a
+     * turn; maps from earlier turns must not be used afterwards.
+     */
+    public void releaseCostMaps() {
+    	costMapPool.releaseAll();
+    }
+    
+    /** Returns the pool the cost maps are taken from. */
+    public CostMapPool getCostMapPool() {
+    	return costMapPool;
+    }
+    
     /** 
      * Instantiates empty map of ints. 
      **/
@@ -483,17 +679,24 @@ public class Ants {
      * @return the composite BFS cost map.
      */
     public int[][] constructCompositeMap(int[][][] costMaps, int[] modifiers) {        	
-    	int[][] compositeMap = new int[rows][];
-        for(int row=0; row < rows; row++) {
-        	compositeMap[row] = new int[cols];
-        	for(int col=0; col < cols; col++) {        		
-        		// add all maps into composite.
-        		for(int i = 0; i < costMaps.length; i++) {
-        			compositeMap[row][col] += costMaps[i][row][col] * modifiers[i];
-        		}
-        	}
-        }
-            	                                           
+    	return constructCompositeMap(costMaps, modifiers, costMapPool.acquire());
+    }
+    
+    /** 
+     * Version of "constructCompositeMap" that writes into an
+     * existing map, one row at a time. Maps with a multiplier of 0
+     * are skipped.
+     * @param compositeMap receives the composite BFS cost map.
+     * @return <code>compositeMap</code>
+     */
+    public int[][] constructCompositeMap(int[][][] costMaps, int[] modifiers, int[][] compositeMap) {
+    	int[][] rowMaps = new int[costMaps.length][];
+    	for(int row = 0; row < rows; row++) {
+    		for(int i = 0; i < costMaps.length; i++) {
+    			rowMaps[i] = costMaps[i][row];
+    		}
+    		compositeBuilder.compose(rowMaps, modifiers, compositeMap[row]);
+    	}
     	return compositeMap;
     }
             
@@ -511,98 +714,85 @@ public class Ants {
      * @param ilkType is the type of tile being searched for.
      */
     public Tile bfsNearestTileType(Tile start, Ilk ilkType) {      	
-    	// Initialize checkedMap array with 0's.
-    	// 0 = unchecked tile.
-    	// Anything above 0 = already checked tile
-    	int[][] checkedMap = new int[rows][];
-    	for(short i = 0; i < checkedMap.length; i++) {
-    		checkedMap[i] = new int[cols];
+    	int found = bfsNearestTileType(getIndex(start), ilkType);
+    	return found == -1 ? null : tiles[found];
+    }
+    
+    /**
+     * Index based version of {@link #bfsNearestTileType(Tile, Ilk)}.
+     * 
+     * @param start index of the tile from where the search begins
+     * @param ilkType is the type of tile being searched for.
+     * @return index of the nearest tile of that type, or -1 if there is none.
+     */
+    public int bfsNearestTileType(int start, Ilk ilkType) {
+    	BfsEngine engine = bfsEngines.acquire();
+    	try {
+    		return engine.nearest(start, ilkType);
+    	} finally {
+    		bfsEngines.release(engine);
     	}
-    	
-    	ArrayList<Tile> queue = new ArrayList<Tile>();
-    	queue.add(start);
-    	checkedMap[start.getRow()][start.getCol()] = 1;
-    	
-    	
-    	while(queue.size() > 0) {
-    		Tile tile = queue.remove(0);
-    		// if our ilk has been found.
-    		if(!tile.equals(start) && getIlk(tile) == ilkType) {
-    			return tile;	
-    		}
-    		
-    		for(Aim direction : Aim.values()) {
-    			Tile neighbor = getTile(tile, direction);
-    			
-    			// Skip this tile if it has already been checked.
-    			if(checkedMap[neighbor.getRow()][neighbor.getCol()] != 0)
-    				continue;
-    				    		    			
-    			// Skip tile if it isn't a walkable tile
-    			if(!getIlk(neighbor).isPassable())
-    				continue;
-    			
-    			
-    			// add cost of tile to costMap
-    			checkedMap[neighbor.getRow()][neighbor.getCol()] = 1;
-    			// add to queue
-    			queue.add(neighbor);
-    		}	
+    }
+    
+    /**
+     * Version of "bfsNearestTileType" which only looks as far as
+     * a number of steps from the start tile. Only the tiles within
+     * that distance are visited, so the cost depends on the size
+     * of the neighborhood rather than the map.
+     * 
+     * @param start is the tile from where the search begins
+     * @param ilkType is the type of tile being searched for.
+     * @param maxSteps largest number of steps from the start tile.
+     * @return nearest tile of that type, or null if there is none
+     *         within <code>maxSteps</code>.
+     */
+    public Tile bfsNearestTileType(Tile start, Ilk ilkType, int maxSteps) {
+    	BfsEngine engine = bfsEngines.acquire();
+    	try {
+    		int found = engine.nearest(getIndex(start), ilkType, maxSteps);
+    		return found == -1 ? null : tiles[found];
+    	} finally {
+    		bfsEngines.release(engine);
     	}
-    	return null; 	
     }
     
     /** 
      * Uses BFS search to return list of tiles with specified ilk.
+     * Only the tiles within the cap are visited.
      * 
      * @param start is the tile from where the BFS is started
-     * @param cap limits the max depth of the BFS search.
+     * @param cap limits the max depth of the BFS search; the start
+     *        tile has a depth of 1.
      * @param targetIlk is the tile type being searched for.
-     * @return List of tiles found with the targetIlk type/
+     * @return List of tiles found with the targetIlk type, nearest first.
      */
 	public ArrayList<Tile> bfsIlkSearch(Tile start, int cap, Ilk targetIlk) {
     	ArrayList<Tile> found = new ArrayList<Tile>();
+    	if(cap < 1) return found;
     	
-    	LinkedList<Tile> queue = new LinkedList<Tile>();
-    	queue.add(start);
-    	    	
-    	byte[][] costMap = new byte[rows][];
-    	for(short i = 0; i < costMap.length; i++) {
-    		costMap[i] = new byte[cols];
-    	}
-    	costMap[start.getRow()][start.getCol()] = 1;
-    	
-    	while(queue.size() > 0) {
-    		// fifo queue.
-    		Tile tile = queue.pollLast();
-    		Ilk ilk = getIlk(tile);
-    		// skip if cap has been reached
-    		if(costMap[tile.getRow()][tile.getCol()] > cap) continue;
-    		
-			if(ilk == targetIlk) { found.add(tile); }
-			    		
-    		for(Aim direction : Aim.values()) {
-    			Tile neighbor = getTile(tile, direction);
-    			
-    			// Skip this tile if it has already been checked.
-    			if(costMap[neighbor.getRow()][neighbor.getCol()] != 0)
-    				continue;
-    				    		    			
-    			// Skip tile if it isn't a walkable tile
-    			if(!getIlk(neighbor).isPassable())
-    				continue;
-    			    			
-    			// add cost of tile to costMap
-    			costMap[neighbor.getRow()][neighbor.getCol()] = (byte) (costMap[tile.getRow()][tile.getCol()] + 1);
-    			
-    			// add to queue
-    			queue.add(neighbor);    			
+    	BfsEngine engine = bfsEngines.acquire();
+    	try {
+    		int count = engine.search(getIndex(start), cap - 1);
+    		for(int i = 0; i < count; i++) {
+    			int index = engine.getVisited(i);
+    			if(TileData.getType(map[index]) == targetIlk) {
+    				found.add(tiles[index]);
+    			}
     		}
+    	} finally {
+    		bfsEngines.release(engine);
     	}
     	
     	return found;
     }
 	
+    /**
+     * Index based version of {@link #bfsIlkSearch(Tile, int, Ilk)}.
+     */
+	public ArrayList<Tile> bfsIlkSearch(int start, int cap, Ilk targetIlk) {
+		return bfsIlkSearch(tiles[start], cap, targetIlk);
+	}
+	
 	
     public int[][] bfs(List<Tile> queue, int[][] costMap) {
     	return bfs(queue, costMap, false);
@@ -612,7 +802,12 @@ public class Ants {
 	 *  instead of a List.
 	 */
     public int[][] bfs(Set<Tile> set, int[][] costMap) {
-    	return bfs(new ArrayList<Tile>(set), costMap, true);
+    	int[] sources = toIndices(set);
+    	try {
+    		return bfs(sources, set.size(), costMap);
+    	} finally {
+    		sourceBuffers.release(sources);
+    	}
     }
     
     /** 
@@ -620,138 +815,197 @@ public class Ants {
      * instead of a initial open set.
      */
     public int[][] bfs(Tile start, int[][] costMap) {
-    	ArrayList<Tile> queue = new ArrayList<Tile>();
-    	queue.add(start);
-    	return bfs(queue, costMap, true);
+    	int[] sources = sourceBuffers.acquire();
+    	try {
+    		sources[0] = getIndex(start);
+    		return bfs(sources, 1, costMap);
+    	} finally {
+    		sourceBuffers.release(sources);
+    	}
     }
     
     /**
-     * Standard breadth-first search.
+     * Index based version of "bfs" that accepts the flat map
+     * indices of the initial open set.
      * 
-     * @param queue is the initial openSet used.
+     * @param sources indices of the initial open set.
+     * @param count number of indices used in <code>sources</code>.
+     */
+    public int[][] bfs(int[] sources, int count, int[][] weights) {
+    	int[][] costMap = costMapPool.acquire();
+    	BfsEngine engine = bfsEngines.acquire();
+    	try {
+    		engine.bfs(sources, count, weights, false, costMap);
+    	} finally {
+    		bfsEngines.release(engine);
+    	}
+    	return costMap;
+    }
+    
+    /**
+     * Standard breadth-first search, run by the {@link BfsEngine}.
+     * 
+     * @param queue is the initial openSet used. It is never modified,
+     *        so isCopy is only kept for existing callers.
      * @return two-dimensional int array with distance costs. 
      */
     public int[][] bfs(List<Tile> queue, int[][] weights, boolean isCopy) {
-    	// copies the contents of the array to not
-    	// modify the original.
-    	if(!isCopy) {
-    		queue = new ArrayList<Tile>(queue);
-    	}
-    	    	
-    	// Initialize costMap array with 0's.
-    	// 0 = unchecked tile.
-    	// Anything above 0 = already checked tile 
-    	// (since cost has been assigned to it) 
-    	int[][] costMap = createEmptyCostMap();
-
-    	// loop through open set and assign their positions 
-    	// in costMap a value of 1 (if they don't have a 
-    	// value assigned already). Since 0 = unchecked tile,
-    	// assigning an initial value of 1 sets the
-    	// initial queue to already be 'checked'.  
-    	for(Tile t : queue) { 
-    		costMap[t.getRow()][t.getCol()] = 1;    		
+    	int[] sources = toIndices(queue);
+    	try {
+    		return bfs(sources, queue.size(), weights);
+    	} finally {
+    		sourceBuffers.release(sources);
     	}
-    	
-    	// initialize weights map to a bunch of 0's if it is null.
-    	if(weights == null) {
-    		weights = createEmptyCostMap();
+    }
+    
+    
+    
+    
+    
+    /**
+     * Weighted search returning exact shortest distances, where
+     * entering a tile costs 1 + its weight. Unlike "bfs" with
+     * weights, tiles are expanded in cost order, so each cost is
+     * the minimum over all paths and tiles are settled only once.
+     * 
+     * @param queue is the initial openSet used.
+     * @param weights non-negative weight of each tile.
+     * @return two-dimensional int array with distance costs.
+     */
+    public int[][] weightedBfs(List<Tile> queue, int[][] weights) {
+    	int[] sources = toIndices(queue);
+    	try {
+    		return weightedBfs(sources, queue.size(), weights);
+    	} finally {
+    		sourceBuffers.release(sources);
     	}
-    	    	
-    	// While there are still nodes left to be evaluated.
-    	while(queue.size() > 0) {
-    		Tile tile = queue.remove(0);
-    		for(Aim direction : Aim.values()) {
-    			Tile neighbor = getTile(tile, direction);
-    			int currCost = costMap[neighbor.getRow()][neighbor.getCol()];
-    			int newCost = costMap[tile.getRow()][tile.getCol()] + 1;    			
-    			
-    			// Skip this tile if it already has a lower cost
-    			// assigned to it.
-    			if(currCost != 0 && currCost <= newCost)
-    				continue;
-    				    		    			
-    			// Skip tile if it isn't a walkable tile.
-    			if(!getIlk(neighbor).isPassable())
-    				continue;
-    			
-    			// add cost of tile to costMap
-    			costMap[neighbor.getRow()][neighbor.getCol()] = newCost;
-    			
-    			// add weights!
-    			costMap[neighbor.getRow()][neighbor.getCol()] += weights[neighbor.getRow()][neighbor.getCol()];
-
-    			// add to queue
-    			if(currCost == 0)
-    				queue.add(neighbor);
-    		}    		
+    }
+    
+    /**
+     * Index based version of "weightedBfs" that accepts the flat map
+     * indices of the initial open set.
+     */
+    public int[][] weightedBfs(int[] sources, int count, int[][] weights) {
+    	int[][] costMap = costMapPool.acquire();
+    	BfsEngine engine = bfsEngines.acquire();
+    	try {
+    		engine.shortestPaths(sources, count, weights, costMap);
+    	} finally {
+    		bfsEngines.release(engine);
     	}
-    	
     	return costMap;
     }
     
+    /**
+     * Creates a distance field over this map which can be
+     * brought up to date with "bfs" every turn.
+     */
+    public DistanceField createDistanceField() {
+    	return new DistanceField(getRows(), getCols(), neighbors, map);
+    }
     
+    /**
+     * Brings a distance field up to date with a new set of sources.
+     * The field is handed the sources added and removed since its
+     * previous update, and the tiles which have turned into water
+     * since then, and repairs its distances from those alone. A
+     * source which moved is removed from its old tile and added on
+     * its new one.
+     * 
+     * @param field distance field kept across turns.
+     * @param sources new set of sources; it is asked whether it
+     *        contains each previous source, so it should be a set.
+     * @return the field, which gives the same costs as "bfs".
+     */
+    public DistanceField updateDistanceField(DistanceField field, Collection<Tile> sources) {
+    	int[] added = new int[sources.size()];
+    	int addedCount = 0;
+    	for(Tile source : sources) {
+    		int index = getIndex(source);
+    		if(!field.isSource(index)) added[addedCount++] = index;
+    	}
+    	int[] removed = new int[field.getSourceCount()];
+    	int removedCount = 0;
+    	for(int i = 0; i < field.getSourceCount(); i++) {
+    		int index = field.getSource(i);
+    		if(!sources.contains(getTile(index))) removed[removedCount++] = index;
+    	}
+    	int seen = field.getWaterCount();
+    	field.update(added, addedCount, removed, removedCount,
+    			Arrays.copyOfRange(waterTiles, seen, waterCount), waterCount - seen);
+    	return field;
+    }
     
+    /**
+     * Unweighted breadth-first search that also labels every tile
+     * with its nearest source, so that tiles can be assigned to
+     * sources in a single pass.
+     * 
+     * @param queue is the initial openSet used.
+     * @param labels receives, for every flat map index, the position
+     *        in <code>queue</code> of the nearest source, or -1 if
+     *        no source can reach the tile.
+     * @return two-dimensional int array with distance costs.
+     */
+    public int[][] labeledBfs(List<Tile> queue, int[] labels) {
+    	int[][] costMap = costMapPool.acquire();
+    	int[] sources = toIndices(queue);
+    	BfsEngine engine = bfsEngines.acquire();
+    	try {
+    		engine.labeledBfs(sources, queue.size(), labels, costMap);
+    	} finally {
+    		bfsEngines.release(engine);
+    		sourceBuffers.release(sources);
+    	}
+    	return costMap;
+    }
     
+    /**
+     * Index based version of "combatBfs" that accepts the flat map
+     * indices of the initial open set.
+     */
+    public int[][] combatBfs(int[] sources, int count, int[][] weights) {
+    	int[][] costMap = costMapPool.acquire();
+    	BfsEngine engine = bfsEngines.acquire();
+    	try {
+    		engine.bfs(sources, count, weights, true, costMap);
+    	} finally {
+    		bfsEngines.release(engine);
+    	}
+    	return costMap;
+    }
     
-    public int[][] combatBfs(List<Tile> queue, int[][] weights) {    	 
-    	// Initialize costMap array with 0's.
-    	// 0 = unchecked tile.
-    	// Anything above 0 = already checked tile 
-    	// (since cost has been assigned to it) 
-    	int[][] costMap = createEmptyCostMap();
-
-    	// loop through open set and assign their positions 
-    	// in costMap a value of 1 (if they don't have a 
-    	// value assigned already). Since 0 = unchecked tile,
-    	// assigning an initial value of 1 sets the
-    	// initial queue to already be 'checked'.  
-    	for(Tile t : queue) { 
-    		costMap[t.getRow()][t.getCol()] = 1;    		
+    /**
+     * Breadth-first search which lowers the cost of tiles
+     * occupied by my ants, so that they cluster in combat.
+     * 
+     * @param queue is the initial openSet used.
+     * @return two-dimensional int array with distance costs. 
+     */
+    public int[][] combatBfs(List<Tile> queue, int[][] weights) {
+    	int[] sources = toIndices(queue);
+    	try {
+    		return combatBfs(sources, queue.size(), weights);
+    	} finally {
+    		sourceBuffers.release(sources);
     	}
-    	
-    	// initialize weights map to a bunch of 0's if it is null.
-    	if(weights == null) {
-    		weights = createEmptyCostMap();
+    }
+    
+    
+    /**
+     * Converts tiles to flat map indices, in a buffer borrowed
+     * from the pool which the caller must hand back.
+     */
+    private int[] toIndices(Collection<Tile> tileList) {
+    	int[] sources = sourceBuffers.acquire();
+    	if(sources.length < tileList.size()) {
+    		sources = new int[Math.max(tileList.size(), sources.length * 2)];
     	}
-    	    	
-    	// While there are still nodes left to be evaluated.
-    	while(queue.size() > 0) {
-    		Tile tile = queue.remove(0);
-    		for(Aim direction : Aim.values()) {
-    			Tile neighbor = getTile(tile, direction);
-    			int currCost = costMap[neighbor.getRow()][neighbor.getCol()];
-    			int newCost = costMap[tile.getRow()][tile.getCol()] + 1;    			
-    			
-    			// Skip this tile if it already has a lower cost
-    			// assigned to it.
-    			if(currCost != 0 && currCost <= newCost)
-    				continue;
-    				    		    			
-    			// Skip tile if it isn't a walkable tile.
-    			if(!getIlk(neighbor).isPassable())
-    				continue;
-    			
-    			// add cost of tile to costMap
-    			costMap[neighbor.getRow()][neighbor.getCol()] = newCost;
-    			
-    			// add weights!
-    			costMap[neighbor.getRow()][neighbor.getCol()] += weights[neighbor.getRow()][neighbor.getCol()];
-
-    			
-    			// clustering
-    			if(getIlk(neighbor) == Ilk.MY_ANT) {
-    				costMap[neighbor.getRow()][neighbor.getCol()] -= 2; 
-    			}
-    			
-    			
-    			// add to queue
-    			if(currCost == 0)
-    				queue.add(neighbor);
-    		}    		
+    	int i = 0;
+    	for(Tile tile : tileList) {
+    		sources[i++] = getIndex(tile);
     	}
-    	
-    	return costMap;
+    	return sources;
     }
     
     
@@ -861,17 +1115,21 @@ public class Ants {
      * @return ilk at the <cod>tile</code>
      */
     public Ilk getIlk(Tile tile) {
-        return map[tile.getRow()][tile.getCol()].getType();
+        return TileData.getType(map[getIndex(tile)]);
     }
 
     /**
      * Sets tile data at the specified location.
      * 
      * @param tile location on the game map
-     * @param td tile data to be set at <code>tile</code>
+     * @param td encoded tile data to be set at <code>tile</code>
      */
-    public void setTileData(Tile tile, TileData td) {
-        map[tile.getRow()][tile.getCol()] = td;
+    public void setTileData(Tile tile, short td) {
+        int index = getIndex(tile);
+        if (TileData.isAnt(map[index]) || TileData.isAnt(td)) {
+            antsVersion++;
+        }
+        map[index] = td;
     }
 
     /**
@@ -884,12 +1142,35 @@ public class Ants {
      */
     public Ilk getIlk(Tile tile, Aim direction) {
         Tile newTile = getTile(tile, direction);
-        return map[newTile.getRow()][newTile.getCol()].getType();
+        return TileData.getType(map[getIndex(newTile)]);
+    }
+    
+    
+    public short getTileData(Tile tile) {
+    	return map[getIndex(tile)];
     }
     
+    /**
+     * Returns index of the specified location in flat maps.
+     * 
+     * @param tile location on the game map
+     * 
+     * @return index of <code>tile</code>, row * cols + col
+     */
+    public int getIndex(Tile tile) {
+        return tile.getRow() * cols + tile.getCol();
+    }
     
-    public TileData getTileData(Tile tile) {
-    	return map[tile.getRow()][tile.getCol()];
+    /**
+     * Returns index of the specified location in flat maps.
+     * 
+     * @param row row index
+     * @param col column index
+     * 
+     * @return index of the location, row * cols + col
+     */
+    public int getIndex(int row, int col) {
+        return row * cols + col;
     }
 
     /**
@@ -901,15 +1182,19 @@ public class Ants {
      * @return location in <code>direction</code> from <cod>tile</code>
      */
     public Tile getTile(Tile tile, Aim direction) {
-        int row = (tile.getRow() + direction.getRowDelta()) % rows;
-        if (row < 0) {
-            row += rows;
-        }
-        int col = (tile.getCol() + direction.getColDelta()) % cols;
-        if (col < 0) {
-            col += cols;
-        }
-        return new Tile(row, col);
+        return tiles[neighbors[getIndex(tile) * DIRECTIONS + direction.ordinal()]];
+    }
+
+    /**
+     * Returns index of the location in the specified direction from the specified index.
+     * 
+     * @param index index of a location, row * cols + col
+     * @param direction direction to look up
+     * 
+     * @return index of the location in <code>direction</code> from <code>index</code>
+     */
+    public int getNeighbor(int index, Aim direction) {
+        return neighbors[index * DIRECTIONS + direction.ordinal()];
     }
 
     /**
@@ -929,7 +1214,31 @@ public class Ants {
         if (col < 0) {
             col += cols;
         }
-        return new Tile(row, col);
+        return tiles[getIndex(row, col)];
+    }
+
+    /**
+     * Returns the canonical tile of the specified location. Tiles returned by the game state are
+     * shared and never allocated after setup.
+     * 
+     * @param row row index
+     * @param col column index
+     * 
+     * @return tile at the specified location
+     */
+    public Tile getTile(int row, int col) {
+        return tiles[getIndex(row, col)];
+    }
+
+    /**
+     * Returns the canonical tile at the specified index of flat maps.
+     * 
+     * @param index index of the location, row * cols + col
+     * 
+     * @return tile at <code>index</code>
+     */
+    public Tile getTile(int index) {
+        return tiles[index];
     }
 
     /**
@@ -994,6 +1303,23 @@ public class Ants {
         return orders;
     }
     
+    /**
+     * Returns buffer holding the encoded orders of the current turn.
+     * 
+     * @return buffer holding the encoded orders of the current turn
+     */
+    public OrderBuffer getOrderBuffer() {
+        return orderBuffer;
+    }
+    
+    /**
+     * Clears all orders issued so far.
+     */
+    public void clearOrders() {
+        orders.clear();
+        orderBuffer.clear();
+    }
+    
     /**
      * Returns true if a location is visible this turn
      *
@@ -1011,7 +1337,7 @@ public class Ants {
      * is returned.
      */
     public Aim getDirection(Tile t1, Tile t2) {
-    	for(Aim direction : Aim.values()) {
+    	for(Aim direction : AIMS) {
     		Tile neighbor = getTile(t1, direction); 
     		if(neighbor.equals(t2)) {
     			return direction;
@@ -1020,7 +1346,7 @@ public class Ants {
     	return null;
     }
     
-    public HashMap<Tile, List<Tile>> getNearbyEnemies() {
+    public CombatEngine getNearbyEnemies() {
     	return nearbyEnemies;
     }
     
@@ -0,0 +1,138 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits the battles of a turn into independent clusters. An enemy ant and one of our ants are
+ * joined when they are within the extended attack radius of each other, where they can fight
+ * after one move each, and the clusters are the groups joined directly or through other ants,
+ * found with union-find. Ants of different clusters cannot reach each other next turn, so each
+ * cluster can be resolved on its own, on any thread. Grouping costs enemy ants x extended attack
+ * area.
+ */
+public class BattleClusters {
+    /**
+     * One group of ants that may fight each other next turn.
+     */
+    public static class Cluster {
+        private final List<Tile> enemies = new ArrayList<Tile>();
+
+        private final List<Tile> mine = new ArrayList<Tile>();
+
+        /**
+         * Returns the enemy ants of the cluster, in the order they were given.
+         *
+         * @return enemy ants
+         */
+        public List<Tile> getEnemies() {
+            return enemies;
+        }
+
+        /**
+         * Returns our ants of the cluster, in the order they were given.
+         *
+         * @return our ants
+         */
+        public List<Tile> getMine() {
+            return mine;
+        }
+    }
+
+    private final Ants ants;
+
+    private final int[] antIds;
+
+    private final int[] antStamps;
+
+    private int epoch;
+
+    private int[] parents = new int[64];
+
+    /**
+     * Creates new {@link BattleClusters} object.
+     *
+     * @param ants game state
+     */
+    public BattleClusters(Ants ants) {
+        this.ants = ants;
+        antIds = new int[ants.getRows() * ants.getCols()];
+        antStamps = new int[ants.getRows() * ants.getCols()];
+    }
+
+    /**
+     * Groups the ants into clusters. Clusters without any of our ants are left out.
+     *
+     * @param enemies enemy ants to group
+     * @param mine our ants to group
+     *
+     * @return clusters, ordered by their first enemy ant
+     */
+    public List<Cluster> partition(List<Tile> enemies, List<Tile> mine) {
+        int count = mine.size() + enemies.size();
+        if (parents.length < count) {
+            parents = new int[Math.max(count, parents.length * 2)];
+        }
+        for (int i = 0; i < count; i++) {
+            parents[i] = i;
+        }
+        epoch++;
+        for (int i = 0; i < mine.size(); i++) {
+            int index = ants.getIndex(mine.get(i));
+            antStamps[index] = epoch;
+            antIds[index] = i;
+        }
+        for (int e = 0; e < enemies.size(); e++) {
+            Tile enemy = enemies.get(e);
+            for (Tile offset : ants.getExtendedCombatOffsets()) {
+                int index = ants.getIndex(ants.getTile(enemy, offset));
+                if (antStamps[index] == epoch) {
+                    union(mine.size() + e, antIds[index]);
+                }
+            }
+        }
+
+        List<Cluster> clusters = new ArrayList<Cluster>();
+        Cluster[] byRoot = new Cluster[count];
+        for (int e = 0; e < enemies.size(); e++) {
+            int root = find(mine.size() + e);
+            if (byRoot[root] == null) {
+                byRoot[root] = new Cluster();
+                clusters.add(byRoot[root]);
+            }
+            byRoot[root].enemies.add(enemies.get(e));
+        }
+        for (int i = 0; i < mine.size(); i++) {
+            Cluster cluster = byRoot[find(i)];
+            if (cluster != null) {
+                cluster.mine.add(mine.get(i));
+            }
+        }
+        for (int i = clusters.size() - 1; i >= 0; i--) {
+            if (clusters.get(i).mine.isEmpty()) {
+                clusters.remove(i);
+            }
+        }
+        return clusters;
+    }
+
+    private int find(int node) {
+        int root = node;
+        while (parents[root] != root) {
+            root = parents[root];
+        }
+        // point the whole path at the root.
+        while (parents[node] != root) {
+            int next = parents[node];
+            parents[node] = root;
+            node = next;
+        }
+        return root;
+    }
+
+    private void union(int a, int b) {
+        int rootA = find(a);
+        int rootB = find(b);
+        if (rootA != rootB) {
+            parents[Math.max(rootA, rootB)] = Math.min(rootA, rootB);
+        }
+    }
+}
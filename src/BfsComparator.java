@@ -2,14 +2,18 @@ import java.util.Comparator;
 
 
 public class BfsComparator implements Comparator<Tile> {
-	int[][] costMap;
+	CostField costMap;
 	
 	public BfsComparator(int[][] costMap) {
+		this(CostField.of(costMap));
+	}
+	
+	public BfsComparator(CostField costMap) {
 		this.costMap = costMap;
 	}
 	
 	public int compare(Tile t1, Tile t2) {
-		return new Integer(costMap[t1.getRow()][t1.getCol()]).compareTo(costMap[t2.getRow()][t2.getCol()]);
+		return Integer.compare(costMap.get(t1), costMap.get(t2));
 	}
 
 }
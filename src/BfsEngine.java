@@ -0,0 +1,394 @@
+import java.util.Arrays;
+
+/**
+ * Breadth-first search over flat map indices. The open set is a ring buffer of cell indices and
+ * costs are kept in a flat array; both are allocated once and reused by every search.
+ */
+public class BfsEngine {
+    private static final int DIRECTIONS = Ants.DIRECTIONS;
+
+    private final int rows;
+
+    private final int cols;
+
+    private final int[] neighbors;
+
+    private final short[] map;
+
+    private final int[] costs;
+
+    private final int[] weightCosts;
+
+    private int[] queue;
+
+    private final int[] stamps;
+
+    private int epoch;
+
+    private final int[] visited;
+
+    private final int[] visitedSteps;
+
+    private int[] bucketHeads = new int[0];
+
+    private int[] entryCells;
+
+    private int[] entryNext;
+
+    private int entries;
+
+    private int head;
+
+    private int size;
+
+    /**
+     * Creates new {@link BfsEngine} object.
+     *
+     * @param rows game map height
+     * @param cols game map width
+     * @param neighbors neighbor index of every location, at index * 4 + aim
+     * @param map flat game map of encoded {@link TileData}
+     */
+    public BfsEngine(int rows, int cols, int[] neighbors, short[] map) {
+        this.rows = rows;
+        this.cols = cols;
+        this.neighbors = neighbors;
+        this.map = map;
+        costs = new int[rows * cols];
+        weightCosts = new int[rows * cols];
+        queue = new int[Integer.highestOneBit(Math.max(rows * cols, 1)) * 2];
+        stamps = new int[rows * cols];
+        visited = new int[rows * cols];
+        visitedSteps = new int[rows * cols];
+        entryCells = new int[rows * cols * DIRECTIONS];
+        entryNext = new int[rows * cols * DIRECTIONS];
+    }
+
+    /**
+     * Standard breadth-first search. Sources get a cost of 1, every other reached tile gets the
+     * cost of the tile it was reached from + 1 + its weight. Unreached tiles keep a cost of 0.
+     *
+     * @param sources indices of the initial open set
+     * @param count number of indices used in <code>sources</code>
+     * @param weights weight added to the cost of each tile, or <code>null</code>
+     * @param clustering lowers the cost of tiles with my ants by 2, as used for combat
+     * @param costMap receives the cost of every tile
+     */
+    public void bfs(int[] sources, int count, int[][] weights, boolean clustering,
+            int[][] costMap) {
+        Arrays.fill(costs, 0);
+        int[] tileWeights = null;
+        if (weights != null) {
+            for (int row = 0; row < rows; row++) {
+                System.arraycopy(weights[row], 0, weightCosts, row * cols, cols);
+            }
+            tileWeights = weightCosts;
+        }
+
+        head = 0;
+        size = 0;
+        for (int i = 0; i < count; i++) {
+            costs[sources[i]] = 1;
+        }
+        for (int i = 0; i < count; i++) {
+            enqueue(sources[i]);
+        }
+
+        while (size > 0) {
+            int index = dequeue();
+            int newCost = costs[index] + 1;
+            for (int d = 0; d < DIRECTIONS; d++) {
+                int neighbor = neighbors[index * DIRECTIONS + d];
+                int currCost = costs[neighbor];
+
+                // Skip this tile if it already has a lower cost assigned to it.
+                if (currCost != 0 && currCost <= newCost) {
+                    continue;
+                }
+                // Skip tile if it isn't a walkable tile.
+                Ilk ilk = TileData.getType(map[neighbor]);
+                if (!ilk.isPassable()) {
+                    continue;
+                }
+
+                int cost = newCost;
+                if (tileWeights != null) {
+                    cost += tileWeights[neighbor];
+                }
+                if (clustering && ilk == Ilk.MY_ANT) {
+                    cost -= 2;
+                }
+                costs[neighbor] = cost;
+
+                if (currCost == 0) {
+                    enqueue(neighbor);
+                }
+            }
+        }
+
+        for (int row = 0; row < rows; row++) {
+            System.arraycopy(costs, row * cols, costMap[row], 0, cols);
+        }
+    }
+
+    /**
+     * Computes exact weighted distances with Dial's algorithm: a bucket queue indexed by cost,
+     * wrapped around since costs in the queue never span more than the largest step. Sources get
+     * a cost of 1, every other reachable tile the lowest cost over all paths, where entering a
+     * tile costs 1 + its weight. Unreached tiles keep a cost of 0. Weights must not be negative;
+     * if they are, the plain {@link #bfs(int[], int, int[][], boolean, int[][])} is used instead.
+     *
+     * @param sources indices of the initial open set
+     * @param count number of indices used in <code>sources</code>
+     * @param weights weight added when entering each tile
+     * @param costMap receives the cost of every tile
+     */
+    public void shortestPaths(int[] sources, int count, int[][] weights, int[][] costMap) {
+        int maxWeight = 0;
+        for (int row = 0; row < rows; row++) {
+            int[] weightRow = weights[row];
+            for (int col = 0; col < cols; col++) {
+                int weight = weightRow[col];
+                if (weight < 0) {
+                    bfs(sources, count, weights, false, costMap);
+                    return;
+                }
+                maxWeight = Math.max(maxWeight, weight);
+            }
+            System.arraycopy(weightRow, 0, weightCosts, row * cols, cols);
+        }
+
+        // a step costs between 1 and maxWeight + 1, so pending costs
+        // never span more than maxWeight + 2 buckets.
+        int bucketCount = maxWeight + 2;
+        if (bucketHeads.length < bucketCount) {
+            bucketHeads = new int[bucketCount];
+        }
+        Arrays.fill(bucketHeads, 0, bucketCount, -1);
+        Arrays.fill(costs, 0);
+        entries = 0;
+
+        int pending = 0;
+        for (int i = 0; i < count; i++) {
+            if (costs[sources[i]] == 0) {
+                costs[sources[i]] = 1;
+                push(1 % bucketCount, sources[i]);
+                pending++;
+            }
+        }
+
+        for (int cost = 1; pending > 0; cost++) {
+            int bucket = cost % bucketCount;
+            while (bucketHeads[bucket] != -1) {
+                int entry = bucketHeads[bucket];
+                bucketHeads[bucket] = entryNext[entry];
+                pending--;
+                int index = entryCells[entry];
+                // skip entries which have been superseded by a cheaper path.
+                if (costs[index] != cost) {
+                    continue;
+                }
+                for (int d = 0; d < DIRECTIONS; d++) {
+                    int neighbor = neighbors[index * DIRECTIONS + d];
+                    if (!TileData.getType(map[neighbor]).isPassable()) {
+                        continue;
+                    }
+                    int newCost = cost + 1 + weightCosts[neighbor];
+                    int currCost = costs[neighbor];
+                    if (currCost == 0 || newCost < currCost) {
+                        costs[neighbor] = newCost;
+                        push(newCost % bucketCount, neighbor);
+                        pending++;
+                    }
+                }
+            }
+        }
+
+        for (int row = 0; row < rows; row++) {
+            System.arraycopy(costs, row * cols, costMap[row], 0, cols);
+        }
+    }
+
+    /**
+     * Unweighted multi-source breadth-first search that also records which source reached each
+     * tile first. Sources get a cost of 1 and their own position in <code>sources</code> as
+     * label. Unreached tiles keep a cost of 0 and a label of -1.
+     *
+     * @param sources indices of the initial open set
+     * @param count number of indices used in <code>sources</code>
+     * @param labels receives the position in <code>sources</code> of the nearest source of every
+     *        tile, indexed by flat map index
+     * @param costMap receives the cost of every tile
+     */
+    public void labeledBfs(int[] sources, int count, int[] labels, int[][] costMap) {
+        Arrays.fill(costs, 0);
+        Arrays.fill(labels, 0, rows * cols, -1);
+        head = 0;
+        size = 0;
+        for (int i = 0; i < count; i++) {
+            if (costs[sources[i]] == 0) {
+                costs[sources[i]] = 1;
+                labels[sources[i]] = i;
+                enqueue(sources[i]);
+            }
+        }
+
+        while (size > 0) {
+            int index = dequeue();
+            int newCost = costs[index] + 1;
+            int label = labels[index];
+            for (int d = 0; d < DIRECTIONS; d++) {
+                int neighbor = neighbors[index * DIRECTIONS + d];
+                if (costs[neighbor] != 0 || !TileData.getType(map[neighbor]).isPassable()) {
+                    continue;
+                }
+                costs[neighbor] = newCost;
+                labels[neighbor] = label;
+                enqueue(neighbor);
+            }
+        }
+
+        for (int row = 0; row < rows; row++) {
+            System.arraycopy(costs, row * cols, costMap[row], 0, cols);
+        }
+    }
+
+    /**
+     * Finds the nearest tile of the specified type, not counting the start tile itself.
+     *
+     * @param start index of the tile from where the search begins
+     * @param ilkType type of tile being searched for
+     *
+     * @return index of the nearest tile of <code>ilkType</code>, or -1 if there is none
+     */
+    public int nearest(int start, Ilk ilkType) {
+        return nearest(start, ilkType, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Finds the nearest tile of the specified type within a number of steps, not counting the
+     * start tile itself. Only the tiles within <code>maxSteps</code> are visited.
+     *
+     * @param start index of the tile from where the search begins
+     * @param ilkType type of tile being searched for
+     * @param maxSteps largest number of steps from the start tile
+     *
+     * @return index of the nearest tile of <code>ilkType</code>, or -1 if there is none
+     */
+    public int nearest(int start, Ilk ilkType, int maxSteps) {
+        int count = expand(start, maxSteps, ilkType);
+        int index = visited[count - 1];
+        return index != start && TileData.getType(map[index]) == ilkType ? index : -1;
+    }
+
+    /**
+     * Visits every tile within a number of steps of the start tile, nearest first. The visited
+     * tiles can be read with {@link #getVisited(int)} and {@link #getSteps(int)} until the next
+     * search. Only the visited tiles are touched.
+     *
+     * @param start index of the tile from where the search begins
+     * @param maxSteps largest number of steps from the start tile
+     *
+     * @return number of visited tiles, including the start tile
+     */
+    public int search(int start, int maxSteps) {
+        return expand(start, maxSteps, null);
+    }
+
+    /**
+     * Returns a tile visited by the last {@link #search(int, int)}.
+     *
+     * @param i position in visiting order
+     *
+     * @return index of the visited tile
+     */
+    public int getVisited(int i) {
+        return visited[i];
+    }
+
+    /**
+     * Returns the number of steps from the start tile to a tile visited by the last
+     * {@link #search(int, int)}.
+     *
+     * @param i position in visiting order
+     *
+     * @return number of steps from the start tile
+     */
+    public int getSteps(int i) {
+        return visitedSteps[i];
+    }
+
+    /**
+     * Breadth-first expansion from a single tile, bounded by a number of steps. Tiles are marked
+     * as visited by stamping them with the number of the current search, so nothing has to be
+     * cleared between searches.
+     *
+     * @param ilkType type of tile at which the search stops, or <code>null</code>
+     *
+     * @return number of visited tiles; if the search stopped at a tile of <code>ilkType</code>,
+     *         it is the last one
+     */
+    private int expand(int start, int maxSteps, Ilk ilkType) {
+        if (++epoch == 0) {
+            Arrays.fill(stamps, 0);
+            epoch = 1;
+        }
+        stamps[start] = epoch;
+        visited[0] = start;
+        visitedSteps[0] = 0;
+        int tail = 1;
+        for (int head = 0; head < tail; head++) {
+            int index = visited[head];
+            if (ilkType != null && index != start && TileData.getType(map[index]) == ilkType) {
+                return head + 1;
+            }
+            int steps = visitedSteps[head];
+            if (steps >= maxSteps) {
+                continue;
+            }
+            for (int d = 0; d < DIRECTIONS; d++) {
+                int neighbor = neighbors[index * DIRECTIONS + d];
+                if (stamps[neighbor] == epoch || !TileData.getType(map[neighbor]).isPassable()) {
+                    continue;
+                }
+                stamps[neighbor] = epoch;
+                visited[tail] = neighbor;
+                visitedSteps[tail] = steps + 1;
+                tail++;
+            }
+        }
+        return tail;
+    }
+
+    private void push(int bucket, int index) {
+        if (entries == entryCells.length) {
+            entryCells = Arrays.copyOf(entryCells, entries * 2);
+            entryNext = Arrays.copyOf(entryNext, entries * 2);
+        }
+        entryCells[entries] = index;
+        entryNext[entries] = bucketHeads[bucket];
+        bucketHeads[bucket] = entries;
+        entries++;
+    }
+
+    private void enqueue(int index) {
+        if (size == queue.length) {
+            // only needed when tiles are queued more than once
+            int[] grown = new int[queue.length * 2];
+            for (int i = 0; i < size; i++) {
+                grown[i] = queue[(head + i) & (queue.length - 1)];
+            }
+            queue = grown;
+            head = 0;
+        }
+        queue[(head + size) & (queue.length - 1)] = index;
+        size++;
+    }
+
+    private int dequeue() {
+        int index = queue[head];
+        head = (head + 1) & (queue.length - 1);
+        size--;
+        return index;
+    }
+}
@@ -12,6 +12,7 @@ public abstract class Bot extends AbstractSystemInputParser {
             int attackRadius2, int spawnRadius2) {
         setAnts(new Ants(loadTime, turnTime, rows, cols, turns, viewRadius2, attackRadius2,
             spawnRadius2));
+        ants.setTurnStartTime(System.currentTimeMillis());
     }
     
     /**
@@ -44,7 +45,7 @@ public abstract class Bot extends AbstractSystemInputParser {
         ants.clearEnemyHills();
         ants.clearFood();
         ants.clearDeadAnts();
-        ants.getOrders().clear();
+        ants.clearOrders();
         ants.clearVision();
     }
     
@@ -53,7 +54,7 @@ public abstract class Bot extends AbstractSystemInputParser {
      */
     @Override
     public void addWater(int row, int col) {
-        ants.update(Ilk.WATER, new Tile(row, col));
+        ants.update(Ilk.WATER, ants.getTile(row, col));
     }
     
     /**
@@ -61,7 +62,7 @@ public abstract class Bot extends AbstractSystemInputParser {
      */
     @Override
     public void addAnt(int row, int col, int owner) {
-        ants.update(owner > 0 ? Ilk.ENEMY_ANT : Ilk.MY_ANT, new Tile(row, col), owner);
+        ants.update(owner > 0 ? Ilk.ENEMY_ANT : Ilk.MY_ANT, ants.getTile(row, col), owner);
     }
     
     /**
@@ -69,7 +70,7 @@ public abstract class Bot extends AbstractSystemInputParser {
      */
     @Override
     public void addFood(int row, int col) {
-        ants.update(Ilk.FOOD, new Tile(row, col));
+        ants.update(Ilk.FOOD, ants.getTile(row, col));
     }
     
     /**
@@ -77,7 +78,7 @@ public abstract class Bot extends AbstractSystemInputParser {
      */
     @Override
     public void removeAnt(int row, int col, int owner) {
-        ants.update(Ilk.DEAD, new Tile(row, col));
+        ants.update(Ilk.DEAD, ants.getTile(row, col));
     }
     
     /**
@@ -85,7 +86,15 @@ public abstract class Bot extends AbstractSystemInputParser {
      */
     @Override
     public void addHill(int row, int col, int owner) {
-        ants.updateHills(owner, new Tile(row, col));
+        ants.updateHills(owner, ants.getTile(row, col));
+    }
+    
+    /**
+     * Sends all orders issued this turn together with the end of turn marker in a single write.
+     */
+    @Override
+    public void finishTurn() {
+        ants.getOrderBuffer().finishTurn(System.out);
     }
     
     /**
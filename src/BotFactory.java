@@ -0,0 +1,11 @@
+/**
+ * Creates fresh bot instances for games played by the {@link Simulator}.
+ */
+public interface BotFactory {
+    /**
+     * Creates a new bot which has not played any game yet.
+     * 
+     * @return new bot
+     */
+    Bot createBot();
+}
@@ -0,0 +1,358 @@
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * Resolves battles on flat arrays. The ants taking part are kept in a list indexed by ant id,
+ * with their tile, owner, number of enemies within the attack radius and the lowest such number
+ * among those enemies. Tiles find their ant through an epoch-stamped id grid, so loading a new
+ * set of ants costs nothing per map tile. Counting enemies costs ants x attack area. Verdicts are
+ * the same as {@link Ants#simulateBattleForAnt}: an ant dies if one of its enemies has as many or
+ * fewer enemies than it does.
+ * <p>
+ * Single ants can be moved and the moves undone again, in reverse order. A move only updates the
+ * enemy counts within the attack radius of the tiles it leaves and enters, so alternative orders
+ * can be tried without loading the ants again. The weakest enemy of an ant is looked up when a
+ * verdict is asked for, at most once per ant between two moves.
+ */
+public class CombatEngine {
+    private final int rows;
+
+    private final int cols;
+
+    private final int[] offsetRows;
+
+    private final int[] offsetCols;
+
+    private final int[] antIds;
+
+    private final int[] antStamps;
+
+    private int epoch;
+
+    private short[] map;
+
+    private int antCount;
+
+    private int[] antCells = new int[64];
+
+    private int[] antOwners = new int[64];
+
+    private boolean[] antMine = new boolean[64];
+
+    private int[] enemyCounts = new int[64];
+
+    private int[] minEnemyWeakness = new int[64];
+
+    private int[] weaknessVersions = new int[64];
+
+    private int version;
+
+    private int moveCount;
+
+    private int[] movedAnts = new int[16];
+
+    private int[] movedFrom = new int[16];
+
+    /**
+     * Creates new {@link CombatEngine} object.
+     *
+     * @param rows game map height
+     * @param cols game map width
+     * @param attackOffsets offsets of the tiles within the attack radius
+     */
+    public CombatEngine(int rows, int cols, Set<Tile> attackOffsets) {
+        this.rows = rows;
+        this.cols = cols;
+        offsetRows = new int[attackOffsets.size()];
+        offsetCols = new int[attackOffsets.size()];
+        int i = 0;
+        // kept within the map, so that a single wrap is enough even on maps smaller than the radius
+        for (Tile offset : attackOffsets) {
+            offsetRows[i] = Math.floorMod(offset.getRow(), rows);
+            offsetCols[i] = Math.floorMod(offset.getCol(), cols);
+            i++;
+        }
+        antIds = new int[rows * cols];
+        antStamps = new int[rows * cols];
+    }
+
+    /**
+     * Starts loading the ants of a map, forgetting the ants loaded before.
+     *
+     * @param map flat game map of encoded {@link TileData}
+     */
+    public void beginLoad(short[] map) {
+        this.map = map;
+        antCount = 0;
+        moveCount = 0;
+        if (++epoch == 0) {
+            Arrays.fill(antStamps, 0);
+            epoch = 1;
+        }
+    }
+
+    /**
+     * Adds the ant at the specified tile. Tiles without an ant and tiles added before are
+     * ignored. Every ant on the map within the attack radius of an added ant must be added too,
+     * and all of them before {@link #finishLoad()}. Moves do not change the map.
+     *
+     * @param index index of the tile
+     */
+    public void addAnt(int index) {
+        if (antStamps[index] == epoch || !TileData.isAnt(map[index])) {
+            return;
+        }
+        if (antCount == antCells.length) {
+            int length = antCount * 2;
+            antCells = Arrays.copyOf(antCells, length);
+            antOwners = Arrays.copyOf(antOwners, length);
+            antMine = Arrays.copyOf(antMine, length);
+            enemyCounts = Arrays.copyOf(enemyCounts, length);
+            minEnemyWeakness = Arrays.copyOf(minEnemyWeakness, length);
+            weaknessVersions = Arrays.copyOf(weaknessVersions, length);
+        }
+        antStamps[index] = epoch;
+        antIds[index] = antCount;
+        antCells[antCount] = index;
+        antOwners[antCount] = TileData.getOwner(map[index]);
+        antMine[antCount] = TileData.getType(map[index]) == Ilk.MY_ANT;
+        weaknessVersions[antCount] = version;
+        antCount++;
+    }
+
+    /**
+     * Counts the enemies of every loaded ant.
+     */
+    public void finishLoad() {
+        for (int ant = 0; ant < antCount; ant++) {
+            enemyCounts[ant] = countEnemies(ant, antCells[ant], 0);
+        }
+        version++;
+    }
+
+    /**
+     * Moves the ant at one tile to another one, updating the enemy counts of the ants within the
+     * attack radius of both tiles.
+     *
+     * @param from index of the tile of the ant
+     * @param to index of the tile the ant moves to
+     *
+     * @return <code>false</code> if there is no ant to move or the destination holds an ant
+     */
+    public boolean applyMove(int from, int to) {
+        int ant = getAnt(from);
+        if (ant == -1 || getAnt(to) != -1) {
+            return false;
+        }
+        if (moveCount == movedAnts.length) {
+            movedAnts = Arrays.copyOf(movedAnts, moveCount * 2);
+            movedFrom = Arrays.copyOf(movedFrom, moveCount * 2);
+        }
+        movedAnts[moveCount] = ant;
+        movedFrom[moveCount] = from;
+        moveCount++;
+        place(ant, from, to);
+        return true;
+    }
+
+    /**
+     * Takes back the last move that has not been undone yet.
+     *
+     * @return <code>false</code> if there is no move left to undo
+     */
+    public boolean undoMove() {
+        if (moveCount == 0) {
+            return false;
+        }
+        moveCount--;
+        int ant = movedAnts[moveCount];
+        place(ant, antCells[ant], movedFrom[moveCount]);
+        return true;
+    }
+
+    /**
+     * Returns the number of moves applied and not undone, so that a caller can undo back to it.
+     *
+     * @return number of moves
+     */
+    public int getMoveCount() {
+        return moveCount;
+    }
+
+    private void place(int ant, int from, int to) {
+        countEnemies(ant, from, -1);
+        antStamps[from] = 0;
+        antStamps[to] = epoch;
+        antIds[to] = ant;
+        antCells[ant] = to;
+        enemyCounts[ant] = countEnemies(ant, to, 1);
+        version++;
+    }
+
+    /**
+     * Counts the enemies of an ant within the attack radius of a tile, adding <code>delta</code>
+     * to the enemy count of each of them.
+     */
+    private int countEnemies(int ant, int cell, int delta) {
+        int owner = antOwners[ant];
+        int count = 0;
+        for (int i = 0; i < offsetRows.length; i++) {
+            int other = antAt(cell, i);
+            if (other != -1 && antOwners[other] != owner) {
+                enemyCounts[other] += delta;
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of loaded ants.
+     *
+     * @return number of ants
+     */
+    public int getAntCount() {
+        return antCount;
+    }
+
+    /**
+     * Returns the id of the ant at the specified tile.
+     *
+     * @param index index of the tile
+     *
+     * @return ant id, or -1 if no ant has been loaded at the tile
+     */
+    public int getAnt(int index) {
+        return antStamps[index] == epoch ? antIds[index] : -1;
+    }
+
+    /**
+     * Returns the tile an ant is on, after the moves applied so far.
+     *
+     * @param ant ant id
+     *
+     * @return index of the tile
+     */
+    public int getCell(int ant) {
+        return antCells[ant];
+    }
+
+    /**
+     * Returns the number of enemies within the attack radius of an ant.
+     *
+     * @param ant ant id
+     *
+     * @return number of enemies
+     */
+    public int getEnemyCount(int ant) {
+        return enemyCounts[ant];
+    }
+
+    /**
+     * Checks if an ant survives the battle.
+     *
+     * @param ant ant id
+     *
+     * @return <code>true</code> if the ant survives, <code>false</code> if it dies
+     */
+    public boolean survives(int ant) {
+        int weakness = enemyCounts[ant];
+        if (weakness == 0) {
+            return true;
+        }
+        if (weaknessVersions[ant] != version) {
+            minEnemyWeakness[ant] = findMinEnemyWeakness(ant);
+            weaknessVersions[ant] = version;
+        }
+        return minEnemyWeakness[ant] > weakness;
+    }
+
+    /**
+     * Checks if an ant is one of ours.
+     *
+     * @param ant ant id
+     *
+     * @return <code>true</code> if the ant was loaded from a {@link Ilk#MY_ANT} tile
+     */
+    public boolean isMine(int ant) {
+        return antMine[ant];
+    }
+
+    private int findMinEnemyWeakness(int ant) {
+        int owner = antOwners[ant];
+        int cell = antCells[ant];
+        int weakness = -1;
+        for (int i = 0; i < offsetRows.length; i++) {
+            int other = antAt(cell, i);
+            if (other != -1 && antOwners[other] != owner) {
+                int otherWeakness = enemyCounts[other];
+                if (weakness == -1 || otherWeakness < weakness) {
+                    weakness = otherWeakness;
+                }
+            }
+        }
+        return weakness;
+    }
+
+    /**
+     * Simulates the battle within the attack radius of a tile.
+     *
+     * @param origin index of the tile at the center of the battle
+     *
+     * @return score of enemy deaths - friend deaths x 2
+     */
+    public int simulateBattleForArea(int origin) {
+        int friendDeaths = 0;
+        int enemyDeaths = 0;
+        for (int i = 0; i < offsetRows.length; i++) {
+            int ant = antAt(origin, i);
+            if (ant == -1 || survives(ant)) {
+                continue;
+            }
+            if (antMine[ant]) {
+                friendDeaths++;
+            } else {
+                enemyDeaths++;
+            }
+        }
+        return enemyDeaths - (friendDeaths * 2);
+    }
+
+    /**
+     * Simulates the battle for the specified ants only, wherever they are.
+     *
+     * @param ants ids of the ants
+     * @param count number of ids used in <code>ants</code>
+     *
+     * @return score of enemy deaths - friend deaths x 2
+     */
+    public int simulateBattleForAnts(int[] ants, int count) {
+        int friendDeaths = 0;
+        int enemyDeaths = 0;
+        for (int i = 0; i < count; i++) {
+            int ant = ants[i];
+            if (survives(ant)) {
+                continue;
+            }
+            if (antMine[ant]) {
+                friendDeaths++;
+            } else {
+                enemyDeaths++;
+            }
+        }
+        return enemyDeaths - (friendDeaths * 2);
+    }
+
+    private int antAt(int cell, int offset) {
+        int row = cell / cols + offsetRows[offset];
+        if (row >= rows) {
+            row -= rows;
+        }
+        int col = cell % cols + offsetCols[offset];
+        if (col >= cols) {
+            col -= cols;
+        }
+        int index = row * cols + col;
+        return antStamps[index] == epoch ? antIds[index] : -1;
+    }
+}
@@ -0,0 +1,232 @@
+import java.util.List;
+
+/**
+ * Searches the moves of our ants in one engagement. Every combination of moves, each ant staying
+ * or stepping to a free neighboring tile, is tried on a {@link CombatEngine} and played against a
+ * model of the enemy replies: the enemy ants either stay, or each of them steps towards the
+ * nearest of our ants. A combination scores the worse of the two outcomes under the rule of
+ * {@link CombatEngine#simulateBattleForAnts}, enemy deaths - friend deaths x 2, counted over the
+ * ants of the engagement.
+ * <p>
+ * A combination stops being played against further replies as soon as it cannot beat the best
+ * combination found, since a further reply can only lower its score. The search stops at its
+ * deadline with the best combination found so far. Staying is tried first, so there is always a
+ * result. Ties go to the combination moving the fewest ants.
+ */
+public class CombatSearch {
+    /** Number of combinations tried between two looks at the clock. */
+    private static final int CHECK_INTERVAL = 32;
+
+    private final Ants ants;
+
+    private final CombatEngine engine;
+
+    private final int mineCount;
+
+    private final int enemyCount;
+
+    /** Ids of our ants first, then of the enemy ants. */
+    private final int[] ids;
+
+    /** Tiles each of our ants may move to, its own tile first. */
+    private final int[][] targets;
+
+    private final int[] targetCounts;
+
+    private final int[] choice;
+
+    private final int[] best;
+
+    private int bestScore = Integer.MIN_VALUE;
+
+    private int bestMoved;
+
+    private int stayScore;
+
+    private int moved;
+
+    private int combinations;
+
+    private long deadline;
+
+    private boolean expired;
+
+    /**
+     * Creates new {@link CombatSearch} object. The engine must hold the ants around the
+     * engagement, as loaded by {@link Ants#predictCombat(java.util.Map, java.util.Collection)},
+     * with the orders given so far applied.
+     *
+     * @param ants game state
+     * @param engine combat engine to try the moves on; it is left as it was found
+     * @param mine our ants taking part, none of which has an order yet
+     * @param enemies enemy ants taking part
+     */
+    public CombatSearch(Ants ants, CombatEngine engine, List<Tile> mine, List<Tile> enemies) {
+        this.ants = ants;
+        this.engine = engine;
+        mineCount = mine.size();
+        enemyCount = enemies.size();
+        ids = new int[mineCount + enemyCount];
+        targets = new int[mineCount][1 + Aim.values().length];
+        targetCounts = new int[mineCount];
+        choice = new int[mineCount];
+        best = new int[mineCount];
+        for (int i = 0; i < enemyCount; i++) {
+            ids[mineCount + i] = engine.getAnt(ants.getIndex(enemies.get(i)));
+        }
+        for (int i = 0; i < mineCount; i++) {
+            Tile ant = mine.get(i);
+            ids[i] = engine.getAnt(ants.getIndex(ant));
+            targets[i][0] = ants.getIndex(ant);
+            int count = 1;
+            for (Aim direction : Aim.values()) {
+                Tile target = ants.getTile(ant, direction);
+                int index = ants.getIndex(target);
+                // the same checks as queueing the order.
+                if (!ants.getIlk(target).isUnoccupied() || engine.getAnt(index) != -1) {
+                    continue;
+                }
+                targets[i][count++] = index;
+            }
+            targetCounts[i] = count;
+        }
+    }
+
+    /**
+     * Searches the combinations of moves until all have been tried or the deadline has passed.
+     *
+     * @param deadline {@link System#nanoTime()} at which to stop
+     */
+    public void search(long deadline) {
+        this.deadline = deadline;
+        searchAnt(0);
+    }
+
+    private void searchAnt(int i) {
+        if (i == mineCount) {
+            evaluate();
+            return;
+        }
+        int from = targets[i][0];
+        for (int m = 0; m < targetCounts[i] && !expired; m++) {
+            // an earlier ant of the combination may have taken the tile.
+            if (m > 0 && !engine.applyMove(from, targets[i][m])) {
+                continue;
+            }
+            choice[i] = m;
+            if (m > 0) {
+                moved++;
+            }
+            searchAnt(i + 1);
+            if (m > 0) {
+                moved--;
+                engine.undoMove();
+            }
+        }
+    }
+
+    private void evaluate() {
+        int score = engine.simulateBattleForAnts(ids, ids.length);
+        if (beats(score)) {
+            int mark = engine.getMoveCount();
+            advanceEnemies();
+            score = Math.min(score, engine.simulateBattleForAnts(ids, ids.length));
+            while (engine.getMoveCount() > mark) {
+                engine.undoMove();
+            }
+        }
+        if (combinations == 0) {
+            stayScore = score;
+        }
+        if (beats(score)) {
+            bestScore = score;
+            bestMoved = moved;
+            System.arraycopy(choice, 0, best, 0, mineCount);
+        }
+        combinations++;
+        if (combinations % CHECK_INTERVAL == 0 && System.nanoTime() >= deadline) {
+            expired = true;
+        }
+    }
+
+    private boolean beats(int score) {
+        return score > bestScore || (score == bestScore && moved < bestMoved);
+    }
+
+    /**
+     * Steps every enemy ant of the engagement towards the nearest of our ants, if that brings it
+     * closer.
+     */
+    private void advanceEnemies() {
+        for (int e = mineCount; e < ids.length; e++) {
+            Tile enemy = ants.getTile(engine.getCell(ids[e]));
+            Tile nearest = null;
+            int nearestDistance = Integer.MAX_VALUE;
+            for (int i = 0; i < mineCount; i++) {
+                Tile ant = ants.getTile(engine.getCell(ids[i]));
+                int distance = ants.getDistance(enemy, ant);
+                if (distance < nearestDistance) {
+                    nearest = ant;
+                    nearestDistance = distance;
+                }
+            }
+            if (nearest == null) {
+                return;
+            }
+            Tile step = null;
+            for (Aim direction : Aim.values()) {
+                Tile target = ants.getTile(enemy, direction);
+                int distance = ants.getDistance(target, nearest);
+                if (distance < nearestDistance && ants.getIlk(target).isPassable()
+                    && engine.getAnt(ants.getIndex(target)) == -1) {
+                    step = target;
+                    nearestDistance = distance;
+                }
+            }
+            if (step != null) {
+                engine.applyMove(ants.getIndex(enemy), ants.getIndex(step));
+            }
+        }
+    }
+
+    /**
+     * Returns the best move found for one of our ants.
+     *
+     * @param i position of the ant in the list given to the constructor
+     *
+     * @return direction to move in, or <code>null</code> to stay
+     */
+    public Aim getMove(int i) {
+        if (best[i] == 0) {
+            return null;
+        }
+        return ants.getDirection(ants.getTile(targets[i][0]), ants.getTile(targets[i][best[i]]));
+    }
+
+    /**
+     * Returns the score of the best combination found.
+     *
+     * @return enemy deaths - friend deaths x 2, assuming the worse enemy reply
+     */
+    public int getBestScore() {
+        return bestScore;
+    }
+
+    /**
+     * Returns the score of all our ants staying where they are.
+     *
+     * @return enemy deaths - friend deaths x 2, assuming the worse enemy reply
+     */
+    public int getStayScore() {
+        return stayScore;
+    }
+
+    /**
+     * Returns the number of combinations tried.
+     *
+     * @return number of combinations
+     */
+    public int getCombinations() {
+        return combinations;
+    }
+}
@@ -0,0 +1,79 @@
+import java.util.Arrays;
+
+/**
+ * Builds composite cost maps, the weighted sums of several cost maps, over flat int arrays such
+ * as the rows of a grid. Inputs with a weight of 0 are skipped and a single input with a weight
+ * of 1 is copied. The kernels are plain loops here; {@link #create()} picks the subclass using
+ * the JDK Vector API when it has been compiled and the jdk.incubator.vector module is present.
+ */
+public class CompositeBuilder {
+    private static final String VECTOR_BUILDER = "VectorCompositeBuilder";
+
+    /**
+     * Creates the fastest builder available.
+     *
+     * @return Vector API builder if it can be loaded, plain builder otherwise
+     */
+    public static CompositeBuilder create() {
+        String name = CompositeBuilder.class.getName();
+        String prefix = name.substring(0, name.length() - "CompositeBuilder".length());
+        try {
+            Class<?> type = Class.forName(prefix + VECTOR_BUILDER);
+            return (CompositeBuilder) type.getDeclaredConstructor().newInstance();
+        } catch (Exception e) {
+            return new CompositeBuilder();
+        } catch (LinkageError e) {
+            return new CompositeBuilder();
+        }
+    }
+
+    /**
+     * Writes the weighted sum of the inputs into the destination.
+     *
+     * @param inputs arrays to be added, each at least as long as <code>destination</code>
+     * @param weights multiplier of each input
+     * @param destination receives the weighted sum; may be one of the inputs only if it is the
+     *        first one with a weight other than 0
+     */
+    public void compose(int[][] inputs, int[] weights, int[] destination) {
+        boolean written = false;
+        for (int i = 0; i < inputs.length; i++) {
+            int weight = weights[i];
+            if (weight == 0) {
+                continue;
+            }
+            int[] in = inputs[i];
+            if (written) {
+                addScaled(in, weight, destination);
+            } else if (weight == 1) {
+                if (in != destination) {
+                    System.arraycopy(in, 0, destination, 0, destination.length);
+                }
+            } else {
+                scale(in, weight, destination);
+            }
+            written = true;
+        }
+        if (!written) {
+            Arrays.fill(destination, 0);
+        }
+    }
+
+    /**
+     * Sets <code>out</code> to <code>in</code> x <code>weight</code>.
+     */
+    protected void scale(int[] in, int weight, int[] out) {
+        for (int i = 0; i < out.length; i++) {
+            out[i] = in[i] * weight;
+        }
+    }
+
+    /**
+     * Adds <code>in</code> x <code>weight</code> to <code>out</code>.
+     */
+    protected void addScaled(int[] in, int weight, int[] out) {
+        for (int i = 0; i < out.length; i++) {
+            out[i] += in[i] * weight;
+        }
+    }
+}
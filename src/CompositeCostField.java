@@ -0,0 +1,74 @@
+import java.util.Arrays;
+
+/**
+ * Weighted sum of several cost maps, evaluated only at the tiles which are read. Each value is
+ * cached until the inputs are replaced; the cache is invalidated by bumping an epoch instead of
+ * clearing it, so replacing the inputs every turn costs nothing per tile.
+ */
+public class CompositeCostField extends CostField {
+    private final int cols;
+
+    private final int[] values;
+
+    private final int[] stamps;
+
+    private int epoch;
+
+    private int[][][] costMaps = new int[0][][];
+
+    private int[] weights = new int[0];
+
+    private int count;
+
+    /**
+     * Creates new {@link CompositeCostField} object with no inputs.
+     *
+     * @param rows game map height
+     * @param cols game map width
+     */
+    public CompositeCostField(int rows, int cols) {
+        this.cols = cols;
+        values = new int[rows * cols];
+        stamps = new int[rows * cols];
+    }
+
+    /**
+     * Replaces the inputs of the composite. Inputs with a weight of 0 are dropped.
+     *
+     * @param maps cost maps to be added
+     * @param modifiers multiplier of each cost map
+     */
+    public void set(int[][][] maps, int[] modifiers) {
+        if (costMaps.length < maps.length) {
+            costMaps = new int[maps.length][][];
+            weights = new int[maps.length];
+        }
+        count = 0;
+        for (int i = 0; i < maps.length; i++) {
+            if (modifiers[i] != 0) {
+                costMaps[count] = maps[i];
+                weights[count] = modifiers[i];
+                count++;
+            }
+        }
+        if (++epoch == 0) {
+            Arrays.fill(stamps, 0);
+            epoch = 1;
+        }
+    }
+
+    @Override
+    public int get(int row, int col) {
+        int index = row * cols + col;
+        if (stamps[index] == epoch) {
+            return values[index];
+        }
+        int cost = 0;
+        for (int i = 0; i < count; i++) {
+            cost += costMaps[i][row][col] * weights[i];
+        }
+        values[index] = cost;
+        stamps[index] = epoch;
+        return cost;
+    }
+}
@@ -0,0 +1,43 @@
+/**
+ * Cost of every tile, read one tile at a time. Lets cost maps which are stored as grids, fields
+ * which keep their own distances across turns, and composite maps which are only evaluated where
+ * they are read be used alike.
+ */
+public abstract class CostField {
+    /**
+     * Returns the cost at the specified location.
+     *
+     * @param row row index
+     * @param col column index
+     *
+     * @return cost at the location
+     */
+    public abstract int get(int row, int col);
+
+    /**
+     * Returns the cost at the specified location.
+     *
+     * @param tile location on the game map
+     *
+     * @return cost at <code>tile</code>
+     */
+    public int get(Tile tile) {
+        return get(tile.getRow(), tile.getCol());
+    }
+
+    /**
+     * Creates a field reading from a cost map.
+     *
+     * @param costMap cost map to read from; it is not copied
+     *
+     * @return field backed by <code>costMap</code>
+     */
+    public static CostField of(final int[][] costMap) {
+        return new CostField() {
+            @Override
+            public int get(int row, int col) {
+                return costMap[row][col];
+            }
+        };
+    }
+}
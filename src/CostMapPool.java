@@ -0,0 +1,112 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Recycles the grids used for cost maps. Grids are handed out for the current turn and all of
+ * them return to the pool when the next turn begins, so once the pool has grown to the number of
+ * maps a turn needs, turns allocate no more grids. Grids can be acquired from several threads at
+ * once, since cost maps are searched concurrently. Handed out grids hold costs from an earlier
+ * turn; to catch producers which do not overwrite every cell, the pool can fill them with
+ * {@link #POISON} first, which it does whenever assertions are enabled.
+ */
+public class CostMapPool {
+    /** Most grids handed out at once; beyond that grids are allocated and not recycled. */
+    private static final int MAX_IN_USE = 256;
+
+    /** Value of every cell of a poisoned grid; no producer writes it. */
+    public static final int POISON = Integer.MIN_VALUE;
+
+    private final int rows;
+
+    private final int cols;
+
+    private final List<int[][]> free = new ArrayList<int[][]>();
+
+    private final List<int[][]> inUse = new ArrayList<int[][]>();
+
+    private int allocated;
+
+    private boolean poisoned = CostMapPool.class.desiredAssertionStatus();
+
+    /**
+     * Creates new {@link CostMapPool} object.
+     *
+     * @param rows game map height
+     * @param cols game map width
+     */
+    public CostMapPool(int rows, int cols) {
+        this.rows = rows;
+        this.cols = cols;
+    }
+
+    /**
+     * Hands out a grid for the current turn. Its contents are left over from an earlier turn, so
+     * callers must overwrite every cell.
+     *
+     * @return grid of <code>rows</code> x <code>cols</code> ints
+     */
+    public synchronized int[][] acquire() {
+        int[][] grid;
+        if (!free.isEmpty()) {
+            grid = free.remove(free.size() - 1);
+        } else {
+            grid = new int[rows][cols];
+            allocated++;
+            if (inUse.size() >= MAX_IN_USE) {
+                return poison(grid);
+            }
+        }
+        inUse.add(grid);
+        return poison(grid);
+    }
+
+    /**
+     * Hands out a grid for the current turn with all cells set to 0.
+     *
+     * @return grid of <code>rows</code> x <code>cols</code> zeros
+     */
+    public int[][] acquireCleared() {
+        int[][] grid = acquire();
+        for (int[] row : grid) {
+            Arrays.fill(row, 0);
+        }
+        return grid;
+    }
+
+    /**
+     * Returns all grids handed out since the last call to the pool. Grids handed out before must
+     * not be used anymore.
+     */
+    public synchronized void releaseAll() {
+        free.addAll(inUse);
+        inUse.clear();
+    }
+
+    /**
+     * Turns filling grids with {@link #POISON} as they are handed out on or off.
+     *
+     * @param poisoned <code>true</code> to poison the grids
+     */
+    public synchronized void setPoisoned(boolean poisoned) {
+        this.poisoned = poisoned;
+    }
+
+    /**
+     * Returns how many grids have been allocated so far.
+     *
+     * @return number of allocated grids
+     */
+    public synchronized int getAllocated() {
+        return allocated;
+    }
+
+    private int[][] poison(int[][] grid) {
+        if (poisoned) {
+            for (int[] row : grid) {
+                Arrays.fill(row, POISON);
+            }
+        }
+        return grid;
+    }
+}
@@ -0,0 +1,435 @@
+import java.util.Arrays;
+
+/**
+ * Unweighted multi-source distance field that is kept across turns. Sources get a cost of 1,
+ * every other reachable tile its distance + 1 to the nearest source, unreached tiles a cost of 0,
+ * exactly as a plain breadth-first search would give. Each update is given what changed since the
+ * previous one: the sources added and removed, and the tiles which turned into water. Only the
+ * tiles whose distance depended on a removed source or on new water are repaired, and the
+ * distances around added sources lowered, so an update costs in proportion to the change rather
+ * than to the map. When the change is too large for that to pay off, the field is recomputed from
+ * scratch. The distances are read in place through {@link CostField#get(int, int)}.
+ */
+public class DistanceField extends CostField {
+    private static final int DIRECTIONS = Ants.DIRECTIONS;
+
+    /** Smallest number of changed sources and tiles which always triggers a full recompute. */
+    private static final int MIN_RECOMPUTE_DELTA = 64;
+
+    private final int rows;
+
+    private final int cols;
+
+    private final int[] neighbors;
+
+    private final short[] map;
+
+    private final int[] distances;
+
+    private final boolean[] passable;
+
+    private final boolean[] sources;
+
+    private final int[] sourceList;
+
+    private final int[] sourcePositions;
+
+    private final boolean[] invalid;
+
+    private int[] changed;
+
+    private long[] seedKeys;
+
+    private int[] borders;
+
+    private int[] queue;
+
+    private int[] queueCosts;
+
+    private int sourceCount;
+
+    private int waterCount;
+
+    private boolean initialized;
+
+    private int repairs;
+
+    private int recomputes;
+
+    /**
+     * Creates new {@link DistanceField} object.
+     *
+     * @param rows game map height
+     * @param cols game map width
+     * @param neighbors neighbor index of every location, at index * 4 + aim
+     * @param map flat game map of encoded {@link TileData}, from which the passable tiles are
+     *        read at the first update
+     */
+    public DistanceField(int rows, int cols, int[] neighbors, short[] map) {
+        this.rows = rows;
+        this.cols = cols;
+        this.neighbors = neighbors;
+        this.map = map;
+        int cells = rows * cols;
+        distances = new int[cells];
+        passable = new boolean[cells];
+        sources = new boolean[cells];
+        sourceList = new int[cells];
+        sourcePositions = new int[cells];
+        invalid = new boolean[cells];
+        changed = new int[64];
+        seedKeys = new long[64];
+        borders = new int[64];
+        queue = new int[cells];
+        queueCosts = new int[cells];
+    }
+
+    /**
+     * Brings the field up to date with what changed since its previous update. A source which
+     * moved is removed from its old tile and added on its new one. Adding a tile which is already
+     * a source, or removing one which is not, is ignored. Water never turns back into land.
+     *
+     * @param added indices of the tiles which became sources
+     * @param addedCount number of indices used in <code>added</code>
+     * @param removed indices of the tiles which are no longer sources
+     * @param removedCount number of indices used in <code>removed</code>
+     * @param water indices of the tiles which turned into water
+     * @param waterCount number of indices used in <code>water</code>
+     */
+    public void update(int[] added, int addedCount, int[] removed, int removedCount,
+            int[] water, int waterCount) {
+        int previousCount = sourceCount;
+        this.waterCount += waterCount;
+
+        // removed sources and new water come first in the changed tiles,
+        // as they seed the invalidation, followed by the added sources.
+        int seedCount = 0;
+        for (int i = 0; i < removedCount; i++) {
+            int index = removed[i];
+            if (sources[index]) {
+                removeSource(index);
+                seedCount = addChanged(index, seedCount);
+            }
+        }
+        for (int i = 0; i < waterCount; i++) {
+            int index = water[i];
+            if (passable[index]) {
+                passable[index] = false;
+                seedCount = addChanged(index, seedCount);
+            }
+        }
+        int changedCount = seedCount;
+        for (int i = 0; i < addedCount; i++) {
+            int index = added[i];
+            if (!sources[index]) {
+                addSource(index);
+                changedCount = addChanged(index, changedCount);
+            }
+        }
+
+        if (!initialized) {
+            int cells = rows * cols;
+            for (int index = 0; index < cells; index++) {
+                passable[index] = TileData.getType(map[index]).isPassable();
+            }
+            recompute();
+            initialized = true;
+        } else if (changedCount > Math.max(MIN_RECOMPUTE_DELTA, (previousCount + sourceCount) / 4)
+                || !repair(seedCount, changedCount)) {
+            recompute();
+        } else if (changedCount > 0) {
+            repairs++;
+        }
+    }
+
+    @Override
+    public int get(int row, int col) {
+        return distances[row * cols + col];
+    }
+
+    /**
+     * Returns whether a tile is one of the sources.
+     *
+     * @param index flat map index of the tile
+     *
+     * @return <code>true</code> if the tile is a source
+     */
+    public boolean isSource(int index) {
+        return sources[index];
+    }
+
+    /**
+     * Returns the number of sources.
+     *
+     * @return number of sources
+     */
+    public int getSourceCount() {
+        return sourceCount;
+    }
+
+    /**
+     * Returns one of the sources, in no particular order.
+     *
+     * @param i position of the source, from 0 to the number of sources
+     *
+     * @return flat map index of the source
+     */
+    public int getSource(int i) {
+        return sourceList[i];
+    }
+
+    /**
+     * Returns how many tiles the field has been told turned into water, over all its updates.
+     *
+     * @return number of new water tiles
+     */
+    public int getWaterCount() {
+        return waterCount;
+    }
+
+    /**
+     * Returns how many updates were done by repairing the previous field.
+     *
+     * @return number of repaired updates
+     */
+    public int getRepairs() {
+        return repairs;
+    }
+
+    /**
+     * Returns how many updates recomputed the field from scratch.
+     *
+     * @return number of recomputed updates
+     */
+    public int getRecomputes() {
+        return recomputes;
+    }
+
+    private void addSource(int index) {
+        sources[index] = true;
+        sourcePositions[index] = sourceCount;
+        sourceList[sourceCount++] = index;
+    }
+
+    private void removeSource(int index) {
+        sources[index] = false;
+        int last = sourceList[--sourceCount];
+        sourceList[sourcePositions[index]] = last;
+        sourcePositions[last] = sourcePositions[index];
+    }
+
+    private int addChanged(int index, int count) {
+        if (count == changed.length) {
+            changed = Arrays.copyOf(changed, count * 2);
+        }
+        changed[count] = index;
+        return count + 1;
+    }
+
+    private void recompute() {
+        Arrays.fill(distances, 0);
+        int tail = 0;
+        for (int i = 0; i < sourceCount; i++) {
+            int source = sourceList[i];
+            distances[source] = 1;
+            queue[tail++] = source;
+        }
+        int head = 0;
+        while (head < tail) {
+            int index = queue[head++];
+            int newCost = distances[index] + 1;
+            for (int d = 0; d < DIRECTIONS; d++) {
+                int neighbor = neighbors[index * DIRECTIONS + d];
+                if (distances[neighbor] == 0 && passable[neighbor]) {
+                    distances[neighbor] = newCost;
+                    queue[tail++] = neighbor;
+                }
+            }
+        }
+        recomputes++;
+    }
+
+    /**
+     * Repairs the field in two passes. The first invalidates, in order of distance, every tile
+     * that has lost all neighbors one step closer to a source. The second runs a breadth-first
+     * relaxation from the added sources and from the valid tiles bordering the invalidated
+     * region.
+     *
+     * @param removedCount number of changed tiles which are removed sources or new water
+     * @param changedCount number of changed tiles, the added sources following the removed ones
+     *
+     * @return <code>false</code> if the invalidated region grew too large to be worth repairing
+     */
+    private boolean repair(int removedCount, int changedCount) {
+        int cells = rows * cols;
+
+        // removed sources and new water, which still hold their old
+        // distances, are the seeds of the invalidation.
+        int seedCount = 0;
+        for (int i = 0; i < removedCount; i++) {
+            int index = changed[i];
+            if (distances[index] != 0 && !sources[index]) {
+                addSeed(index, seedCount++);
+            }
+        }
+        Arrays.sort(seedKeys, 0, seedCount);
+
+        // seeds and queued tiles are merged in order of distance, so a tile
+        // is only checked once all tiles one step closer have been.
+        int invalidCount = 0;
+        int head = 0;
+        int tail = 0;
+        int next = 0;
+        while (next < seedCount || head < tail) {
+            int index;
+            if (head == tail || (next < seedCount
+                    && (int) (seedKeys[next] >>> 32) <= distances[queue[head]])) {
+                index = (int) seedKeys[next++];
+                if (invalid[index]) {
+                    continue;
+                }
+                invalid[index] = true;
+                invalidCount++;
+            } else {
+                index = queue[head++];
+            }
+            int childCost = distances[index] + 1;
+            for (int d = 0; d < DIRECTIONS; d++) {
+                int neighbor = neighbors[index * DIRECTIONS + d];
+                if (invalid[neighbor] || distances[neighbor] != childCost
+                        || sources[neighbor] || hasSupport(neighbor)) {
+                    continue;
+                }
+                invalid[neighbor] = true;
+                invalidCount++;
+                queue[tail++] = neighbor;
+            }
+            if (invalidCount > cells / 2) {
+                clearInvalid(tail, seedCount);
+                return false;
+            }
+        }
+
+        for (int i = 0; i < tail; i++) {
+            distances[queue[i]] = 0;
+        }
+        for (int i = 0; i < seedCount; i++) {
+            distances[(int) seedKeys[i]] = 0;
+        }
+
+        // the valid tiles around the invalidated region and the added
+        // sources are relaxed from.
+        int borderCount = 0;
+        for (int i = 0; i < tail; i++) {
+            borderCount = addBorder(queue[i], borderCount);
+        }
+        for (int i = 0; i < seedCount; i++) {
+            borderCount = addBorder((int) seedKeys[i], borderCount);
+        }
+        clearInvalid(tail, seedCount);
+        for (int i = removedCount; i < changedCount; i++) {
+            int index = changed[i];
+            if (sources[index]) {
+                distances[index] = 1;
+                borderCount = addRelaxSeed(index, borderCount);
+            }
+        }
+
+        seedCount = 0;
+        for (int i = 0; i < borderCount; i++) {
+            addSeed(borders[i], seedCount++);
+        }
+        Arrays.sort(seedKeys, 0, seedCount);
+        relax(seedCount);
+        return true;
+    }
+
+    private boolean hasSupport(int index) {
+        int parentCost = distances[index] - 1;
+        for (int d = 0; d < DIRECTIONS; d++) {
+            int neighbor = neighbors[index * DIRECTIONS + d];
+            if (!invalid[neighbor] && passable[neighbor] && distances[neighbor] == parentCost) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int addBorder(int index, int count) {
+        for (int d = 0; d < DIRECTIONS; d++) {
+            int neighbor = neighbors[index * DIRECTIONS + d];
+            if (!invalid[neighbor] && distances[neighbor] != 0) {
+                count = addRelaxSeed(neighbor, count);
+            }
+        }
+        return count;
+    }
+
+    private int addRelaxSeed(int index, int count) {
+        if (count == borders.length) {
+            borders = Arrays.copyOf(borders, count * 2);
+        }
+        borders[count] = index;
+        return count + 1;
+    }
+
+    private void addSeed(int index, int position) {
+        if (position == seedKeys.length) {
+            seedKeys = Arrays.copyOf(seedKeys, position * 2);
+        }
+        // distances fit in the upper half, so sorting the keys sorts by distance.
+        seedKeys[position] = ((long) distances[index] << 32) | index;
+    }
+
+    private void clearInvalid(int queued, int seedCount) {
+        for (int i = 0; i < queued; i++) {
+            invalid[queue[i]] = false;
+        }
+        for (int i = 0; i < seedCount; i++) {
+            invalid[(int) seedKeys[i]] = false;
+        }
+    }
+
+    /**
+     * Lowers distances from the sorted seeds. Seeds and queued tiles are merged in order of
+     * distance, so every tile is final when it is expanded; entries whose tile has been lowered
+     * since they were added are skipped.
+     */
+    private void relax(int seedCount) {
+        int head = 0;
+        int tail = 0;
+        int next = 0;
+        while (next < seedCount || head < tail) {
+            int index;
+            int cost;
+            if (head == tail
+                    || (next < seedCount && (int) (seedKeys[next] >>> 32) <= queueCosts[head])) {
+                index = (int) seedKeys[next];
+                cost = (int) (seedKeys[next] >>> 32);
+                next++;
+            } else {
+                index = queue[head];
+                cost = queueCosts[head];
+                head++;
+            }
+            if (distances[index] != cost) {
+                continue;
+            }
+            int newCost = cost + 1;
+            for (int d = 0; d < DIRECTIONS; d++) {
+                int neighbor = neighbors[index * DIRECTIONS + d];
+                int currCost = distances[neighbor];
+                if ((currCost == 0 || newCost < currCost) && passable[neighbor]) {
+                    distances[neighbor] = newCost;
+                    if (tail == queue.length) {
+                        queue = Arrays.copyOf(queue, queue.length * 2);
+                        queueCosts = Arrays.copyOf(queueCosts, queueCosts.length * 2);
+                    }
+                    queue[tail] = neighbor;
+                    queueCosts[tail] = newCost;
+                    tail++;
+                }
+            }
+        }
+    }
+}
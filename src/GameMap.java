@@ -0,0 +1,118 @@
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Holds a game map in the format used by the game engine. Each map row is given on a line
+ * starting with <code>m</code>, where <code>%</code> is water, <code>.</code> is land,
+ * <code>*</code> is food, <code>0</code>-<code>9</code> is a hill, <code>a</code>-<code>j</code>
+ * is an ant and <code>A</code>-<code>J</code> is an ant standing on its own hill.
+ */
+public class GameMap {
+    private final int rows;
+    
+    private final int cols;
+    
+    private final int players;
+    
+    private final char[][] cells;
+    
+    /**
+     * Creates new {@link GameMap} object.
+     * 
+     * @param players number of players
+     * @param cells map contents, one array per row
+     */
+    public GameMap(int players, char[][] cells) {
+        this.rows = cells.length;
+        this.cols = cells[0].length;
+        this.players = players;
+        this.cells = cells;
+    }
+    
+    /**
+     * Loads a map file.
+     * 
+     * @param path path of the map file
+     * 
+     * @return loaded map
+     * 
+     * @throws IOException if an I/O error occurs or the map is malformed
+     */
+    public static GameMap load(String path) throws IOException {
+        int rows = 0;
+        int cols = 0;
+        int players = 0;
+        List<char[]> cells = new ArrayList<char[]>();
+        BufferedReader reader = new BufferedReader(new FileReader(path));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.startsWith("rows ")) {
+                    rows = Integer.parseInt(line.substring(5).trim());
+                } else if (line.startsWith("cols ")) {
+                    cols = Integer.parseInt(line.substring(5).trim());
+                } else if (line.startsWith("players ")) {
+                    players = Integer.parseInt(line.substring(8).trim());
+                } else if (line.startsWith("m ")) {
+                    cells.add(line.substring(2).trim().toCharArray());
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        if (rows == 0 || cells.size() != rows) {
+            throw new IOException("map " + path + " has " + cells.size() + " rows, expected "
+                + rows);
+        }
+        for (char[] row : cells) {
+            if (row.length != cols) {
+                throw new IOException("map " + path + " has a row of " + row.length
+                    + " columns, expected " + cols);
+            }
+        }
+        return new GameMap(players, cells.toArray(new char[rows][]));
+    }
+    
+    /**
+     * Returns game map height.
+     * 
+     * @return game map height
+     */
+    public int getRows() {
+        return rows;
+    }
+    
+    /**
+     * Returns game map width.
+     * 
+     * @return game map width
+     */
+    public int getCols() {
+        return cols;
+    }
+    
+    /**
+     * Returns number of players.
+     * 
+     * @return number of players
+     */
+    public int getPlayers() {
+        return players;
+    }
+    
+    /**
+     * Returns map symbol at the specified location.
+     * 
+     * @param row row index
+     * @param col column index
+     * 
+     * @return map symbol at the specified location
+     */
+    public char getCell(int row, int col) {
+        return cells[row][col];
+    }
+}
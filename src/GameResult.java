@@ -0,0 +1,93 @@
+/**
+ * Holds the outcome of a game played by the {@link Simulator}.
+ */
+public class GameResult {
+    private final int turns;
+    
+    private final int[] scores;
+    
+    private final int[] ants;
+    
+    private final int[] timeouts;
+    
+    private final boolean[] crashed;
+    
+    /**
+     * Creates new {@link GameResult} object.
+     * 
+     * @param turns number of turns played
+     * @param scores final score of each player
+     * @param ants number of ants each player has at the end of the game
+     * @param timeouts number of turns each player exceeded the turn time
+     * @param crashed whether each player's bot has thrown an exception
+     */
+    public GameResult(int turns, int[] scores, int[] ants, int[] timeouts, boolean[] crashed) {
+        this.turns = turns;
+        this.scores = scores;
+        this.ants = ants;
+        this.timeouts = timeouts;
+        this.crashed = crashed;
+    }
+    
+    /**
+     * Returns number of turns played.
+     * 
+     * @return number of turns played
+     */
+    public int getTurns() {
+        return turns;
+    }
+    
+    /**
+     * Returns final score of a player.
+     * 
+     * @param player player id
+     * 
+     * @return final score of <code>player</code>
+     */
+    public int getScore(int player) {
+        return scores[player];
+    }
+    
+    /**
+     * Returns number of ants a player has at the end of the game.
+     * 
+     * @param player player id
+     * 
+     * @return number of ants of <code>player</code>
+     */
+    public int getAnts(int player) {
+        return ants[player];
+    }
+    
+    /**
+     * Returns number of turns in which a player exceeded the turn time.
+     * 
+     * @param player player id
+     * 
+     * @return number of timed out turns of <code>player</code>
+     */
+    public int getTimeouts(int player) {
+        return timeouts[player];
+    }
+    
+    /**
+     * Returns whether a player's bot has thrown an exception.
+     * 
+     * @param player player id
+     * 
+     * @return <code>true</code> if the bot of <code>player</code> has crashed
+     */
+    public boolean isCrashed(int player) {
+        return crashed[player];
+    }
+    
+    /**
+     * Returns number of players.
+     * 
+     * @return number of players
+     */
+    public int getPlayers() {
+        return scores.length;
+    }
+}
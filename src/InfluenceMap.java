@@ -0,0 +1,148 @@
+import java.util.Arrays;
+
+/**
+ * Counts, for every tile and every player, the ants of that player within a radius of the tile.
+ * Within an attack radius these are the ants which can attack the tile. The disk of the radius is
+ * split into its rows: each row of the disk is a window of the map row it falls on, and windows
+ * are summed in O(1) from running sums along the map rows, extended at both ends to wrap around
+ * the torus. A player costs O(tiles x rows of the disk), no matter how many ants there are.
+ * <p>
+ * Counts are the same as checking every offset of {@link Ants#getTilesFromRadius(int)} around
+ * the tile, including on maps smaller than the disk, where an ant is counted once per offset
+ * that reaches it.
+ */
+public class InfluenceMap {
+    private final int rows;
+
+    private final int cols;
+
+    /** Largest row or column offset of the disk. */
+    private final int reach;
+
+    /** Half width of each row of the disk, by row offset + reach. */
+    private final int[] widths;
+
+    private final int stride;
+
+    /** Running sums of the current player's ants along each extended map row. */
+    private final int[] sums;
+
+    private int[][] influence = new int[0][];
+
+    private int players;
+
+    /**
+     * Creates new {@link InfluenceMap} object.
+     *
+     * @param rows game map height
+     * @param cols game map width
+     * @param radius2 squared radius
+     */
+    public InfluenceMap(int rows, int cols, int radius2) {
+        this.rows = rows;
+        this.cols = cols;
+        reach = (int) Math.sqrt(radius2);
+        widths = new int[2 * reach + 1];
+        for (int row = -reach; row <= reach; row++) {
+            int width = 0;
+            while (width < reach && (width + 1) * (width + 1) + row * row <= radius2) {
+                width++;
+            }
+            widths[row + reach] = width;
+        }
+        stride = cols + 2 * reach + 1;
+        sums = new int[rows * stride];
+    }
+
+    /**
+     * Counts the ants of every player on a map.
+     *
+     * @param map flat game map of encoded {@link TileData}
+     */
+    public void compute(short[] map) {
+        players = 1;
+        for (short data : map) {
+            if (TileData.isAnt(data)) {
+                players = Math.max(players, TileData.getOwner(data) + 1);
+            }
+        }
+        if (influence.length < players) {
+            int[][] grown = Arrays.copyOf(influence, players);
+            for (int player = influence.length; player < players; player++) {
+                grown[player] = new int[rows * cols];
+            }
+            influence = grown;
+        }
+        for (int player = 0; player < players; player++) {
+            sumRows(map, player);
+            sumDisks(influence[player]);
+        }
+    }
+
+    /**
+     * Fills the running sums of a player's ants along every map row, starting
+     * <code>reach</code> columns before the first one and ending as many after the last one.
+     */
+    private void sumRows(short[] map, int player) {
+        for (int row = 0; row < rows; row++) {
+            int base = row * stride;
+            int offset = row * cols;
+            int col = cols - reach % cols;
+            if (col == cols) {
+                col = 0;
+            }
+            sums[base] = 0;
+            for (int i = 1; i < stride; i++) {
+                short data = map[offset + col];
+                int ant = TileData.isAnt(data) && TileData.getOwner(data) == player ? 1 : 0;
+                sums[base + i] = sums[base + i - 1] + ant;
+                if (++col == cols) {
+                    col = 0;
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds up the row windows of the disk around every tile.
+     */
+    private void sumDisks(int[] counts) {
+        Arrays.fill(counts, 0);
+        for (int row = 0; row < rows; row++) {
+            int out = row * cols;
+            for (int i = 0; i < widths.length; i++) {
+                int source = (row + i - reach) % rows;
+                if (source < 0) {
+                    source += rows;
+                }
+                int width = widths[i];
+                int high = source * stride + reach + width + 1;
+                int low = source * stride + reach - width;
+                for (int col = 0; col < cols; col++) {
+                    counts[out + col] += sums[high + col] - sums[low + col];
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the number of players found by the last count, one more than the highest owner of
+     * an ant on the map.
+     *
+     * @return number of players
+     */
+    public int getPlayers() {
+        return players;
+    }
+
+    /**
+     * Returns the ants of a player within the radius of every tile.
+     *
+     * @param player owner of the ants, 0 for our own
+     *
+     * @return counts indexed by row * cols + col; valid until the next count
+     */
+    public int[] getInfluence(int player) {
+        return influence[player];
+    }
+}
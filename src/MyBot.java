@@ -1,5 +1,8 @@
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 
 import javax.swing.plaf.basic.BasicInternalFrameTitlePane.MoveAction;
 
@@ -16,19 +19,49 @@ public class MyBot extends Bot {
 	// be near friendly hill
 	public static int ENEMY_DEFENSE_RANGE = 15;
 	
+	// steps within which one of my ants must be for
+	// the battle around an enemy ant to be calculated.
+	public static int COMBAT_RANGE = 4;
+	
+	// most ants of each side taking part in the move
+	// search of a single battle.
+	public static int MAX_BATTLE_ANTS = 5;
+	public static int MAX_BATTLE_ENEMIES = 6;
+	
 	// Turns that need to pass before last_seen
 	// value is factored into the explore map equation.
 	public static int UNSEEN_WEIGHT = 10;
 	
+	// Turn time shares given to each phase. The cost maps
+	// are always calculated and queued orders are always sent.
+	public static double COMBAT_BUDGET = 0.15;
+	public static double FOOD_BUDGET = 0.15;
+	public static double DEFENSE_BUDGET = 0.1;
+	public static double EXPLORE_BUDGET = 0.15;
+	public static double ANALYSIS_BUDGET = 0.15;
+	// most of the combat share a single battle may use.
+	public static double BATTLE_BUDGET = 0.03;
+	
+	// Turn time share that must be left to start the analysis.
+	public static double MIN_ANALYSIS_TIME = 0.05;
+	
 	// Current turn.
 	public int turn = 0;
 	
 	private Map<Tile, Tile> orders = new HashMap<Tile, Tile>();
-	private int[][] ordersMap;
+	// turn in which the ant at each location got its order.
+	private int[] ordersMap;
+	
+	// independent battles of a turn, resolved in parallel.
+	private BattleClusters battleClusters;
+	// offsets within extendedAttackRadius2, nearest first.
+	private List<Tile> battleOffsets;
 	
 	private Set<Tile> unexploredTiles;
 	private int[][] lastSeen;
 	private Set<Tile> seenFood = new HashSet<Tile>(); 
+	private List<Tile> foodList = new ArrayList<Tile>();
+	private int[] foodLabels;
 	private Set<Tile> seenEnemyHills = new HashSet<Tile>();
 	
 	private List<Tile> ants;
@@ -38,7 +71,6 @@ public class MyBot extends Bot {
 		
 	
 	// base bfs cost maps
-	private int[][] myAntsCostMap;
 	private int[][] myHillsCostMap;
 	private int[][] enemyAntsCostMap;
 	private int[][] enemyHillsCostMap;	
@@ -47,22 +79,34 @@ public class MyBot extends Bot {
 	private int[][] defenseCostMap;
 	
 	// composite bfs cost maps
-	private int[][] explorerCostMap;
-	private int[][] combatCostMap;
-	private int[][] defendorCostMap;
-	private int[][] enemyCircleCostMap;
+	private CostField explorerCostMap;
+	private CompositeCostField combatCostMap;
+	private CompositeCostField defendorCostMap;
+	private CostField enemyCircleCostMap;
+	
+	// distance fields repaired from turn to turn
+	private DistanceField enemyAntsField;
 	List<int[][]> cornerMaps;
+	
+	private final TurnProfiler profiler = new TurnProfiler();
+	private final TurnScheduler scheduler = new TurnScheduler();
 		
 	
     /**
      * Main method executed by the game engine for starting the bot.
+     * Passing <code>-record &lt;file&gt;</code> copies the game input to the file
+     * so that the game can be replayed with {@link Replay}.
      * 
      * @param args command line arguments
      * 
      * @throws IOException if an I/O error occurs
      */
     public static void main(String[] args) throws IOException {
-        new MyBot().readSystemInput();
+        MyBot bot = new MyBot();
+        if (args.length == 2 && args[0].equals("-record")) {
+            bot.setRecording(new FileOutputStream(args[1]));
+        }
+        bot.readSystemInput();
     }
     
     
@@ -70,41 +114,213 @@ public class MyBot extends Bot {
      * Main function. All the action happens here!
      */
     public void doTurn() {
+        profiler.beginTurn();
         Ants ai = getAnts();
+        scheduler.beginTurn(ai);
         ants = new ArrayList<Tile>(ai.getMyAnts());
         antsSize = ants.size();
         turn++;
         
-        // refresh stale data.
+        // refresh stale data; cost maps of the last turn are reused.
+        ai.releaseCostMaps();
         orders.clear();               
         refreshData();
+        profiler.lap(Phase.REFRESH_DATA);
         calculateCostMaps();                
         
-        for(Tile enemy : ai.getEnemyAnts()) {
-        	// if not in range of any ally ants, don't calculate the battle.
-        	if(myAntsCostMap[enemy.getRow()][enemy.getCol()] > 5) continue;
-        	resolveCombat(enemy);
-        }
+        scheduler.beginPhase(COMBAT_BUDGET);
+        combat();
+        profiler.lap(Phase.COMBAT);
         
         // Re-ordering these functions gives them
-        // different priorities.
+        // different priorities. Each of them stops early
+        // when its share of the turn time is used up.
+        scheduler.beginPhase(FOOD_BUDGET);
         food();
+        profiler.lap(Phase.FOOD);
+        scheduler.beginPhase(DEFENSE_BUDGET);
         defense();
+        profiler.lap(Phase.DEFENSE);
+        scheduler.beginPhase(EXPLORE_BUDGET);
         explore();
+        profiler.lap(Phase.EXPLORE);
+        scheduler.beginPhase(1);
 	hillRazers();
-        analysis();        
+        profiler.lap(Phase.HILL_RAZERS);
+        // the combat re-check is optional, skip it when late.
+        if(scheduler.hasTimeFor(MIN_ANALYSIS_TIME)) {
+        	scheduler.beginPhase(ANALYSIS_BUDGET);
+        	analysis();
+        }
+        profiler.lap(Phase.ANALYSIS);
                
-        // execute orders.
+        // execute orders, even if the deadline has passed.
         for(Tile newLoc : orders.keySet()) {
         	Tile currLoc = orders.get(newLoc);        	
         	ai.issueOrder(currLoc, ai.getDirection(currLoc, newLoc));
         }
+        profiler.lap(Phase.ORDERS);
+        profiler.endTurn();
 
         System.err.println("finish time is: " + ai.getTimeRemaining());
     }
 
-    private void resolveCombat(Tile origin) {
+    /**
+     * Reports how long each phase of the turn took over the whole game.
+     */
+    @Override
+    public void endGame() {
+    	profiler.report(System.err);
+    }
+    
+    /**
+     * Groups the enemy ants near my ants into independent battles and
+     * resolves them on the worker pool. The battles see the orders queued
+     * before the phase only, and the moves found are queued once all
+     * battles are done; a move whose destination has been taken by a
+     * battle next to it is dropped, leaving the ant to the other phases.
+     */
+    private void combat() {
+    	Ants ai = getAnts();
+    	if(battleClusters == null) {
+    		battleClusters = new BattleClusters(ai);
+    		battleOffsets = new ArrayList<Tile>(ai.getExtendedCombatOffsets());
+    		Collections.sort(battleOffsets, new Comparator<Tile>() {
+    			public int compare(Tile t1, Tile t2) {
+    				int d1 = t1.getRow() * t1.getRow() + t1.getCol() * t1.getCol();
+    				int d2 = t2.getRow() * t2.getRow() + t2.getCol() * t2.getCol();
+    				if(d1 != d2) return Integer.compare(d1, d2);
+    				if(t1.getRow() != t2.getRow()) return Integer.compare(t1.getRow(), t2.getRow());
+    				return Integer.compare(t1.getCol(), t2.getCol());
+    			}
+    		});
+    	}
+    	
+    	List<Tile> enemies = new ArrayList<Tile>();
+    	for(Tile enemy : ai.getEnemyAnts()) {
+    		// if not in range of any ally ants, don't calculate the battle.
+    		if(ai.bfsNearestTileType(enemy, Ilk.MY_ANT, COMBAT_RANGE) == null) continue;
+    		enemies.add(enemy);
+    	}
+    	List<Tile> mine = new ArrayList<Tile>();
+    	for(Tile ant : ai.getMyAnts()) {
+    		if(ordersMap[ai.getIndex(ant)] != turn) mine.add(ant);
+    	}
     	
+    	// the battles read a copy, since orders are queued while they run.
+    	Map<Tile, Tile> queued = new HashMap<Tile, Tile>(orders);
+    	List<Battle> battles = new ArrayList<Battle>();
+    	for(BattleClusters.Cluster cluster : battleClusters.partition(enemies, mine)) {
+    		battles.add(new Battle(cluster, queued).submit());
+    	}
+    	List<Map<Tile, Aim>> results = new ArrayList<Map<Tile, Aim>>();
+    	for(Battle battle : battles) {
+    		results.add(WorkerPool.join(battle.future));
+    	}
+    	for(Map<Tile, Aim> moves : results) {
+    		for(Map.Entry<Tile, Aim> move : moves.entrySet()) {
+    			Tile ant = move.getKey();
+    			if(move.getValue() == null) {
+    				// holding ants count as ordered, so they stay put.
+    				ordersMap[ai.getIndex(ant)] = turn;
+    			} else {
+    				queueMove(ant, move.getValue());
+    			}
+    		}
+    	}
+    }
+    
+    /**
+     * Resolves the battles of one cluster, one enemy ant after another,
+     * on its own {@link CombatEngine}. Works on the cluster and a copy of
+     * the orders only, never on the orders of the bot, so that clusters can
+     * be resolved at the same time.
+     */
+    private class Battle implements Callable<Map<Tile, Aim>> {
+    	private final BattleClusters.Cluster cluster;
+    	private final Set<Tile> mine;
+    	private final Set<Tile> enemies;
+    	private final Map<Tile, Tile> queued;
+    	private Future<Map<Tile, Aim>> future;
+    	
+    	Battle(BattleClusters.Cluster cluster, Map<Tile, Tile> queued) {
+    		this.cluster = cluster;
+    		this.mine = new HashSet<Tile>(cluster.getMine());
+    		this.enemies = new HashSet<Tile>(cluster.getEnemies());
+    		this.queued = queued;
+    	}
+    	
+    	public Map<Tile, Aim> call() {
+    		Ants ai = getAnts();
+    		List<Tile> ants = new ArrayList<Tile>(cluster.getMine());
+    		ants.addAll(cluster.getEnemies());
+    		CombatEngine combat = ai.predictCombat(queued, ants);
+    		Map<Tile, Aim> moves = new LinkedHashMap<Tile, Aim>();
+    		Set<Tile> searched = new HashSet<Tile>();
+    		try {
+    			for(Tile enemy : cluster.getEnemies()) {
+    				if(scheduler.isPhaseExpired()) break;
+    				// enemies of a battle already searched are not searched again.
+    				if(searched.contains(enemy)) continue;
+    				resolveCombat(enemy, combat, mine, enemies, searched, moves);
+    			}
+    		} finally {
+    			ai.releaseCombatEngine(combat);
+    		}
+    		return moves;
+    	}
+    	
+    	/** Starts resolving the battles on the worker pool. */
+    	Battle submit() {
+    		future = WorkerPool.submit(this);
+    		return this;
+    	}
+    }
+    
+    /**
+     * Searches the best moves of my ants near an enemy ant, against the
+     * enemy ants near it. Nothing is chosen when the battle goes no better
+     * than standing still and no enemy dies, so that the other phases can
+     * move the ants.
+     * 
+     * @param origin enemy ant at the center of the battle
+     * @param combat battles with the moves chosen so far applied
+     * @param free my ants without an order when the phase began
+     * @param cluster enemy ants that may take part
+     * @param searched receives the enemy ants of the battle
+     * @param moves receives the chosen moves; <code>null</code> to hold
+     */
+    private void resolveCombat(Tile origin, CombatEngine combat, Set<Tile> free,
+    		Set<Tile> cluster, Set<Tile> searched, Map<Tile, Aim> moves) {
+    	Ants ai = getAnts();
+    	List<Tile> mine = new ArrayList<Tile>();
+    	List<Tile> enemies = new ArrayList<Tile>();
+    	for(Tile offset : battleOffsets) {
+    		Tile loc = ai.getTile(origin, offset);
+    		Ilk ilk = ai.getIlk(loc);
+    		if(ilk == Ilk.MY_ANT && free.contains(loc) 
+    				&& !moves.containsKey(loc) && mine.size() < MAX_BATTLE_ANTS) {
+    			mine.add(loc);
+    		} else if(ilk == Ilk.ENEMY_ANT && cluster.contains(loc) 
+    				&& enemies.size() < MAX_BATTLE_ENEMIES) {
+    			enemies.add(loc);
+    		}
+    	}
+    	searched.addAll(enemies);
+    	if(mine.isEmpty()) return;
+    	
+    	CombatSearch search = new CombatSearch(ai, combat, mine, enemies);
+    	search.search(scheduler.getTaskDeadline(BATTLE_BUDGET));
+    	if(search.getBestScore() <= 0 && search.getBestScore() <= search.getStayScore()) return;
+    	
+    	for(int i = 0; i < mine.size(); i++) {
+    		Tile ant = mine.get(i);
+    		Aim direction = search.getMove(i);
+    		moves.put(ant, direction);
+    		if(direction != null) {
+    			combat.applyMove(ai.getIndex(ant), ai.getIndex(ai.getTile(ant, direction)));
+    		}
+    	}
     }
     
     private boolean queueMove(Tile antLoc, Aim direction) {    	
@@ -113,7 +329,7 @@ public class MyBot extends Bot {
     	Tile newLoc = ants.getTile(antLoc, direction);
     	    	    	
     	// if this ant has already been moved, ignore.
-    	if(ordersMap[antLoc.getRow()][antLoc.getCol()] == 1) {
+    	if(ordersMap[ants.getIndex(antLoc)] == turn) {
     		return false;
     	}
     	
@@ -127,10 +343,11 @@ public class MyBot extends Bot {
     
     private void refreshOrdersMap() {
     	Ants ai = getAnts();
-    	ordersMap = new int[ai.getRows()][];
-	    for(int row = 0; row < ordersMap.length; row++) {
-	    	ordersMap[row] = new int[ai.getCols()];
-	    }    	
+    	// entries of earlier turns no longer match the turn,
+    	// so the map only has to be created once.
+    	if(ordersMap == null) {
+    		ordersMap = new int[ai.getRows() * ai.getCols()];
+    	}
     }
     
     
@@ -143,7 +360,7 @@ public class MyBot extends Bot {
     	Ants ai = getAnts();
     	Tile newLoc = ai.getTile(ant, direction);
     	orders.put(newLoc, ant);
-    	ordersMap[ant.getRow()][ant.getCol()] = 1;
+    	ordersMap[ai.getIndex(ant)] = turn;
     	antMoveHistory.put(newLoc, direction.opposite());
     	// ants.issueOrder(antLoc, direction);
     }
@@ -155,7 +372,7 @@ public class MyBot extends Bot {
     	Tile currLoc = orders.get(t);
     	orders.remove(t);
     	if(currLoc != null) 
-    		ordersMap[currLoc.getRow()][currLoc.getCol()] = 0;
+    		ordersMap[getAnts().getIndex(currLoc)] = 0;
     }
        
     
@@ -171,7 +388,7 @@ public class MyBot extends Bot {
      *        
      * @return Direction chosen.
      */
-    private Aim bfsMoveDir(Tile a, int[][] costMap, boolean strict) {
+    private Aim bfsMoveDir(Tile a, CostField costMap, boolean strict) {
     	Ants ai = getAnts();    	
     	int lowestCost = -1;
     	Aim selectedDir = null;
@@ -183,7 +400,7 @@ public class MyBot extends Bot {
     	for(Aim direction : directions) {
     		Tile neighbor = ai.getTile(a, direction);
     		Ilk ilk = ai.getIlk(neighbor);    		
-    		int cost = costMap[neighbor.getRow()][neighbor.getCol()];
+    		int cost = costMap.get(neighbor);
     		
     		// 0 means unexplored, so skip.        	
     		if(cost == 0) continue;
@@ -220,7 +437,7 @@ public class MyBot extends Bot {
     	// when strict mode is enabled, moves are only considered
     	// if they have a lower cost than the location where the ant
     	// is currently standing on.
-    	int standingCost = ai.getBfsCost(a, costMap);
+    	int standingCost = costMap.get(a);
     	if(strict && standingCost != 0 && standingCost < lowestCost) {
     		return null;
     	}
@@ -239,6 +456,10 @@ public class MyBot extends Bot {
      * Strict = false when not passed in.
      */
     private boolean bfsMove(Tile a, int[][] costMap) {
+    	return bfsMove(a, CostField.of(costMap), false);
+    }
+    
+    private boolean bfsMove(Tile a, CostField costMap) {
     	return bfsMove(a, costMap, false);
     }
    
@@ -257,7 +478,7 @@ public class MyBot extends Bot {
      *        
      * @return If order-queue was successful or not.268
      */
-    private boolean bfsMove(Tile a, int[][] costMap, boolean strict) {
+    private boolean bfsMove(Tile a, CostField costMap, boolean strict) {
     	Ants ai = getAnts();
     	Aim selectedDir = bfsMoveDir(a, costMap, strict);
     	
@@ -275,24 +496,24 @@ public class MyBot extends Bot {
     
     private void analysis() {
     	Ants ai = getAnts();
-        // construct prediction map based on current set of orders.
-    	TileData[][] map = ai.constructPredictionMap(orders);
-        HashMap<Tile, List<Tile>> nearbyEnemies = ai.generateNearbyEnemies(map, ai.getAttackRadius2());
+        // predict the battles with the current set of orders applied.
+        CombatEngine combat = ai.predictCombat(orders);
         
         // new orders to be appended based on adjustments.
         Map<Tile, Aim> newOrders = new HashMap<Tile, Aim>();
         
         
         for(Tile t : ai.getEnemyAnts()) {        	        	
+        	if(scheduler.isPhaseExpired()) break;
         	// if not in range of any ally ants, don't calculate the battle.
-        	if(myAntsCostMap[t.getRow()][t.getCol()] > 5) continue;        	
-        	int score = ai.simulateBattleForArea(t, map, nearbyEnemies, ai.getAttackRadius2());
+        	if(ai.bfsNearestTileType(t, Ilk.MY_ANT, COMBAT_RANGE) == null) continue;        	
+        	int score = combat.simulateBattleForArea(ai.getIndex(t));
         	if(score < 0) {
         		// cancel orders for all ants nearby!
         		for(Tile offset : ai.getTilesFromRadius(ai.getAttackRadius2())) {
         			Tile combatLoc = ai.getTile(t, offset);
-        			TileData td = map[combatLoc.getRow()][combatLoc.getCol()];
-        			if(td.getType() == Ilk.MY_ANT) {
+        			int ant = combat.getAnt(ai.getIndex(combatLoc));
+        			if(ant != -1 && combat.isMine(ant)) {
         				Tile currLoc = orders.get(combatLoc);
         				removeOrder(combatLoc);
         				/*
@@ -309,6 +530,7 @@ public class MyBot extends Bot {
         	}   
         	     	
         }
+        ai.releaseCombatEngine(combat);
         
         // append adjusted orders.
         for(Tile ant : newOrders.keySet()) {
@@ -321,8 +543,22 @@ public class MyBot extends Bot {
     // ------------------------------------------    
     private void food() {
     	Ants ai = getAnts();
-        for(Tile food : seenFood) {
-        	Tile nearestAnt = ai.bfsNearestTileType(food, Ilk.MY_ANT);
+    	// every food is claimed by the closest of the free ants
+    	// which have it as their nearest food.
+    	Tile[] nearestAnts = new Tile[foodList.size()];
+    	for(Tile ant : ants) {
+    		// ants moved or held by combat can't collect food.
+    		if(ordersMap[ai.getIndex(ant)] == turn) continue;
+    		int label = foodLabels[ai.getIndex(ant)];
+    		if(label == -1) continue;
+    		Tile nearestAnt = nearestAnts[label];
+    		if(nearestAnt == null || ai.getBfsCost(ant, foodCostMap) < ai.getBfsCost(nearestAnt, foodCostMap)) {
+    			nearestAnts[label] = ant;
+    		}
+    	}
+        for(Tile nearestAnt : nearestAnts) {
+        	if(scheduler.isPhaseExpired()) break;
+        	if(nearestAnt == null) continue;
         	bfsMove(nearestAnt, foodCostMap);
         	ants.remove(nearestAnt);
         }    	
@@ -346,6 +582,7 @@ public class MyBot extends Bot {
         for(Iterator<Tile> antIter = ants.iterator(); antIter.hasNext();) {
         	// break out of loop if all defenders have been allocated!
         	if(defendAllocation >= (enemyAntsNearHill*1.5)) break;
+        	if(scheduler.isPhaseExpired()) break;
         	
         	Tile ant = antIter.next();
         	// Only choose this ant if it is close enough to the hill
@@ -371,6 +608,7 @@ public class MyBot extends Bot {
         for(Iterator<Tile> explorers = ants.iterator(); explorers.hasNext();) {
         	Tile ant = explorers.next();
         	if(explorerAllocation >= explorerAnts) break;
+        	if(scheduler.isPhaseExpired()) break;
         	
         	// ignore ants that are very close to enemy hills. 
         	// as these should always be assigned to combat.
@@ -388,6 +626,7 @@ public class MyBot extends Bot {
     private void hillRazers() {
     	Ants ai = getAnts();
         for(Tile ant : ants) {
+        	if(scheduler.isExpired()) break;
         	int cost = ai.getBfsCost(ant, enemyHillsCostMap);        	
         	if(cost > 10 || cost == 0) {
         		bfsMove(ant, combatCostMap);
@@ -418,50 +657,138 @@ public class MyBot extends Bot {
     }
 
     /** 
-     * Calculates all BFS cost maps used for each turn. 
+     * Calculates all BFS cost maps used for each turn. The base
+     * maps are independent, so they are searched concurrently on
+     * the {@link WorkerPool}, while this thread searches the
+     * explore map and builds each composite map as soon as its
+     * inputs are done. Searches only read the game state.
      */
     private void calculateCostMaps() {
-    	Ants ai = getAnts();
+    	final Ants ai = getAnts();
     	    	    	
-    	/**  base cost maps. **/
-    	myAntsCostMap = ai.bfs(ai.getMyAnts(), null);
-    	myHillsCostMap = ai.bfs(ai.getMyHills(), null);
-    	
-    	
-    	
-        enemyAntsCostMap = ai.combatBfs(new ArrayList<Tile>(ai.getEnemyAnts()), null);
-        enemyHillsCostMap = ai.bfs(seenEnemyHills, null);        
-        defenseCostMap = ai.bfs(ai.getDefensePoints(), null);
-        foodCostMap = ai.bfs(seenFood, null);
+    	/**  inputs of the base cost maps. **/
+    	if(enemyAntsField == null) {
+    		enemyAntsField = ai.createDistanceField();
+    	}
+        foodList.clear();
+        foodList.addAll(seenFood);
+        if(foodLabels == null) foodLabels = new int[ai.getRows() * ai.getCols()];
 
-        List<Tile> unseenTiles = getUnseenTiles();
-        int[][] exploreMap = ai.createEmptyCostMap();
+        final List<Tile> unseenTiles = getUnseenTiles();
+        final int[][] exploreMap = ai.acquireEmptyCostMap();
         for(Tile t : unseenTiles) {        	
         	exploreMap[t.getRow()][t.getCol()] = lastSeen[t.getRow()][t.getCol()];
         }
         for(Tile t : unexploredTiles) {
         	exploreMap[t.getRow()][t.getCol()] = 0;
         }
-        exploreCostMap = ai.bfs(unseenTiles, exploreMap, true);
-                                                      	            	      
-        enemyCircleCostMap = ai.bfs(ai.getEnemyAnts(), null);
-        for(Tile enemy : ai.getEnemyAnts()) {
-        	for(Tile offset : ai.getTilesFromRadius(ai.getAttackRadius2())) {
-        		Tile combatLoc = ai.getTile(enemy, offset);
-        		enemyCircleCostMap[combatLoc.getRow()][combatLoc.getCol()] = 0;
+    	
+    	/**  base cost maps. **/
+        CostMapSearch myHills = new CostMapSearch(Phase.BFS_MY_HILLS) {
+        	protected int[][] search() {
+        		return ai.bfs(ai.getMyHills(), null);
         	}
-        }
+        }.submit();
+        CostMapSearch enemyAnts = new CostMapSearch(Phase.BFS_ENEMY_ANTS) {
+        	protected int[][] search() {
+        		return ai.combatBfs(new ArrayList<Tile>(ai.getEnemyAnts()), null);
+        	}
+        }.submit();
+        CostMapSearch enemyHills = new CostMapSearch(Phase.BFS_ENEMY_HILLS) {
+        	protected int[][] search() {
+        		return ai.bfs(seenEnemyHills, null);
+        	}
+        }.submit();
+        CostMapSearch defense = new CostMapSearch(Phase.BFS_DEFENSE) {
+        	protected int[][] search() {
+        		return ai.bfs(ai.getDefensePoints(), null);
+        	}
+        }.submit();
+        CostMapSearch food = new CostMapSearch(Phase.BFS_FOOD) {
+        	protected int[][] search() {
+        		return ai.labeledBfs(foodList, foodLabels);
+        	}
+        }.submit();
+        CostMapSearch explore = new CostMapSearch(Phase.BFS_EXPLORE) {
+        	protected int[][] search() {
+        		return ai.weightedBfs(unseenTiles, exploreMap);
+        	}
+        };
         
-        /** composite cost maps. **/       
-        explorerCostMap = ai.constructCompositeMap(new int[][][] {  exploreCostMap },
-				  							       new int[]     {       1         });
-            
-        combatCostMap = ai.constructCompositeMap(new int[][][] { enemyHillsCostMap, enemyAntsCostMap, explorerCostMap},
-        									     new int[]     {        10, 			   0,	    		1	     });
+        /**  distance field, repaired on this thread while the searches run. **/
+        long fieldStart = System.nanoTime();
+        ai.updateDistanceField(enemyAntsField, ai.getEnemyAnts());
+        // tiles any enemy ant can attack are left out.
+        final InfluenceMap influence = ai.getAttackInfluence();
+        enemyCircleCostMap = new CostField() {
+        	public int get(int row, int col) {
+        		int index = ai.getIndex(row, col);
+        		for(int player = 1; player < influence.getPlayers(); player++) {
+        			if(influence.getInfluence(player)[index] > 0) return 0;
+        		}
+        		return enemyAntsField.get(row, col);
+        	}
+        };
+        profiler.record(Phase.BFS_ENEMY_CIRCLE, System.nanoTime() - fieldStart);
         
-        defendorCostMap = ai.constructCompositeMap(new int[][][] { enemyAntsCostMap, myHillsCostMap },
-				  								   new int[]     {       1, 			    1 	    });
-                
+        exploreCostMap = explore.call();
+        profiler.record(explore.phase, explore.nanos);
+        
+        enemyHillsCostMap = enemyHills.join();
+        enemyAntsCostMap = enemyAnts.join();
+        myHillsCostMap = myHills.join();
+        defenseCostMap = defense.join();
+        foodCostMap = food.join();
+        profiler.lap(Phase.COST_MAPS);
+        
+        /** composite cost maps, evaluated where ants read them. **/
+        if(combatCostMap == null) {
+        	combatCostMap = new CompositeCostField(ai.getRows(), ai.getCols());
+        	defendorCostMap = new CompositeCostField(ai.getRows(), ai.getCols());
+        }
+        // the explorer map is the explore map by itself, so it is read directly.
+        explorerCostMap = CostField.of(exploreCostMap);
+        combatCostMap.set(new int[][][] { enemyHillsCostMap, enemyAntsCostMap, exploreCostMap},
+        				  new int[]     {        10, 			   0,	    		1	     });
+        defendorCostMap.set(new int[][][] { enemyAntsCostMap, myHillsCostMap },
+        					new int[]     {       1, 			    1 	    });
+        profiler.lap(Phase.COMPOSITE_MAPS);
+    }
+    
+    /**
+     * Search for one of the base cost maps, timed on the thread
+     * which runs it so that the profiler can record its duration.
+     */
+    private abstract class CostMapSearch implements Callable<int[][]> {
+    	private final Phase phase;
+    	private Future<int[][]> future;
+    	private long nanos;
+    	
+    	CostMapSearch(Phase phase) {
+    		this.phase = phase;
+    	}
+    	
+    	protected abstract int[][] search();
+    	
+    	public int[][] call() {
+    		long start = System.nanoTime();
+    		int[][] costMap = search();
+    		nanos = System.nanoTime() - start;
+    		return costMap;
+    	}
+    	
+    	/** Starts the search on the worker pool. */
+    	CostMapSearch submit() {
+    		future = WorkerPool.submit(this);
+    		return this;
+    	}
+    	
+    	/** Waits for the search and records its duration. */
+    	int[][] join() {
+    		int[][] costMap = WorkerPool.join(future);
+    		profiler.record(phase, nanos);
+    		return costMap;
+    	}
     }
           
     
@@ -502,7 +829,7 @@ public class MyBot extends Bot {
         	unexploredTiles = new HashSet<Tile>();
         	for(int row = 0; row < ants.getRows(); row++) {
         		for(int col = 0; col < ants.getCols(); col++) {
-        			unexploredTiles.add(new Tile(row, col));
+        			unexploredTiles.add(ants.getTile(row, col));
         		}
         	}
         }                
@@ -549,7 +876,7 @@ public class MyBot extends Bot {
     	LinkedList<Tile> tiles = new LinkedList<Tile>();
     	for(int row = 0; row < ants.getRows(); row++) {
     		for(int col = 0; col < ants.getCols(); col++) {
-    			Tile t = new Tile(row, col);
+    			Tile t = ants.getTile(row, col);
     			if(!ants.isVisible(t)) { 
     				tiles.add(t);    				
     				if(lastSeen[row][col] > 0) {
@@ -20,6 +20,33 @@ public class Order {
         this.direction = direction.getSymbol();
     }
     
+    /**
+     * Returns row index of the ordered ant.
+     * 
+     * @return row index of the ordered ant
+     */
+    public int getRow() {
+        return row;
+    }
+    
+    /**
+     * Returns column index of the ordered ant.
+     * 
+     * @return column index of the ordered ant
+     */
+    public int getCol() {
+        return col;
+    }
+    
+    /**
+     * Returns direction in which the ant is ordered to move.
+     * 
+     * @return direction in which the ant is ordered to move
+     */
+    public Aim getDirection() {
+        return Aim.fromSymbol(direction);
+    }
+    
     /**
      * {@inheritDoc}
      */
@@ -0,0 +1,80 @@
+import java.io.PrintStream;
+import java.util.Arrays;
+
+/**
+ * Encodes the orders of a single turn into one preallocated byte buffer, so that they can be sent
+ * to the system output together with the end of turn marker in a single write.
+ */
+public class OrderBuffer {
+    private static final int INITIAL_CAPACITY = 16 * 1024;
+    
+    /** Longest possible order line: "o " + two ints, two spaces, direction and newline. */
+    private static final int MAX_ORDER_LENGTH = 2 + 11 + 1 + 11 + 1 + 1 + 1;
+    
+    private static final byte[] GO = { 'g', 'o', '\n' };
+    
+    private byte[] buffer = new byte[INITIAL_CAPACITY];
+    
+    private int length;
+    
+    /**
+     * Appends an order to the buffer.
+     * 
+     * @param row row index of my ant
+     * @param col column index of my ant
+     * @param direction direction in which to move my ant
+     */
+    public void append(int row, int col, Aim direction) {
+        ensureCapacity(MAX_ORDER_LENGTH);
+        buffer[length++] = 'o';
+        buffer[length++] = ' ';
+        appendInt(row);
+        buffer[length++] = ' ';
+        appendInt(col);
+        buffer[length++] = ' ';
+        buffer[length++] = (byte)direction.getSymbol();
+        buffer[length++] = '\n';
+    }
+    
+    /**
+     * Writes all buffered orders followed by the end of turn marker and clears the buffer.
+     * 
+     * @param out stream the orders are sent to
+     */
+    public void finishTurn(PrintStream out) {
+        ensureCapacity(GO.length);
+        System.arraycopy(GO, 0, buffer, length, GO.length);
+        length += GO.length;
+        out.write(buffer, 0, length);
+        out.flush();
+        clear();
+    }
+    
+    /**
+     * Discards all buffered orders.
+     */
+    public void clear() {
+        length = 0;
+    }
+    
+    private void appendInt(int value) {
+        if (value < 0) {
+            buffer[length++] = '-';
+            value = -value;
+        }
+        int divisor = 1;
+        while (value / divisor >= 10) {
+            divisor *= 10;
+        }
+        while (divisor > 0) {
+            buffer[length++] = (byte)('0' + value / divisor % 10);
+            divisor /= 10;
+        }
+    }
+    
+    private void ensureCapacity(int extra) {
+        if (length + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + extra));
+        }
+    }
+}
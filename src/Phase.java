@@ -0,0 +1,73 @@
+/**
+ * Represents a phase of {@link MyBot#doTurn()} measured by the {@link TurnProfiler}.
+ */
+public enum Phase {
+    /** Refreshing stale data from previous turns. */
+    REFRESH_DATA("refreshData"),
+    
+    /** Distance map from my hills. */
+    BFS_MY_HILLS("bfs myHills"),
+    
+    /** Combat distance map from enemy ants. */
+    BFS_ENEMY_ANTS("bfs enemyAnts"),
+    
+    /** Distance map from known enemy hills. */
+    BFS_ENEMY_HILLS("bfs enemyHills"),
+    
+    /** Distance map from hill defense points. */
+    BFS_DEFENSE("bfs defense"),
+    
+    /** Distance map from known food. */
+    BFS_FOOD("bfs food"),
+    
+    /** Weighted distance map from unseen tiles. */
+    BFS_EXPLORE("bfs explore"),
+    
+    /** Distance map from enemy ants, cleared inside their attack radius. */
+    BFS_ENEMY_CIRCLE("bfs enemyCircle"),
+    
+    /** All cost maps, searched concurrently; wall time of the whole section. */
+    COST_MAPS("costMaps"),
+    
+    /** Weighted sums of the base cost maps. */
+    COMPOSITE_MAPS("compositeMaps"),
+    
+    /** Resolving combat around enemy ants. */
+    COMBAT("combat"),
+    
+    /** Sending ants to food. */
+    FOOD("food"),
+    
+    /** Sending ants to defend my hills. */
+    DEFENSE("defense"),
+    
+    /** Sending ants to explore. */
+    EXPLORE("explore"),
+    
+    /** Sending remaining ants to enemy hills. */
+    HILL_RAZERS("hillRazers"),
+    
+    /** Cancelling orders which lose battles. */
+    ANALYSIS("analysis"),
+    
+    /** Issuing queued orders. */
+    ORDERS("orders"),
+    
+    /** Whole turn. */
+    TURN("turn");
+    
+    private final String label;
+    
+    Phase(String label) {
+        this.label = label;
+    }
+    
+    /**
+     * Returns name of this phase used in reports.
+     * 
+     * @return name of this phase used in reports
+     */
+    public String getLabel() {
+        return label;
+    }
+}
@@ -0,0 +1,88 @@
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Replays a game recorded with <code>MyBot -record &lt;file&gt;</code> against {@link MyBot}.
+ * The recording is memory-mapped and fed through the regular input processing as fast as
+ * possible. For every turn the wall time spent in {@link MyBot#doTurn()} is reported, followed
+ * by the orders produced exactly as they would have been sent to the game engine.
+ */
+public class Replay {
+    /**
+     * Starts the replay.
+     * 
+     * @param args path of the recorded game
+     * 
+     * @throws IOException if an I/O error occurs
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("usage: java Replay <recording>");
+            System.exit(1);
+        }
+        RandomAccessFile file = new RandomAccessFile(args[0], "r");
+        try {
+            FileChannel channel = file.getChannel();
+            MappedByteBuffer input = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            ReplayBot bot = new ReplayBot(System.out);
+            bot.readInput(input);
+            bot.printSummary();
+        } finally {
+            file.close();
+        }
+    }
+    
+    /**
+     * {@link MyBot} which times each turn and reports its orders instead of sending them.
+     */
+    private static class ReplayBot extends MyBot {
+        private final PrintStream out;
+        
+        private int turns;
+        
+        private long turnTime;
+        
+        private long totalTime;
+        
+        private long maxTime;
+        
+        public ReplayBot(PrintStream out) {
+            this.out = out;
+        }
+        
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void doTurn() {
+            long start = System.nanoTime();
+            super.doTurn();
+            turnTime = System.nanoTime() - start;
+        }
+        
+        /**
+         * Reports the time spent in the turn and the orders it produced.
+         */
+        @Override
+        public void finishTurn() {
+            Ants ants = getAnts();
+            out.printf("# turn %d: %.3f ms, %d orders%n", turns, turnTime / 1e6,
+                ants.getOrders().size());
+            ants.getOrderBuffer().finishTurn(out);
+            totalTime += turnTime;
+            maxTime = Math.max(maxTime, turnTime);
+            turns++;
+        }
+        
+        /**
+         * Reports the number of turns played and the total and slowest turn times.
+         */
+        public void printSummary() {
+            out.printf("# %d turns: total %.3f ms, max %.3f ms%n", turns, totalTime / 1e6,
+                maxTime / 1e6);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Recycles scratch objects of searches. A search borrows an object, uses it and hands it back, so
+ * searches running at the same time each get their own object and the pool grows to the number of
+ * searches that ever ran at once. The objects belong to the pool and are dropped with it, not kept
+ * by the threads which used them.
+ *
+ * @param <T> type of the scratch objects
+ */
+public abstract class ScratchPool<T> {
+    private final List<T> free = new ArrayList<T>();
+
+    /**
+     * Creates a new scratch object when none is free.
+     *
+     * @return new scratch object
+     */
+    protected abstract T create();
+
+    /**
+     * Borrows a scratch object. Its contents are left over from an earlier search.
+     *
+     * @return scratch object, which must be released when the search is done
+     */
+    public T acquire() {
+        synchronized (free) {
+            if (!free.isEmpty()) {
+                return free.remove(free.size() - 1);
+            }
+        }
+        return create();
+    }
+
+    /**
+     * Hands back a scratch object borrowed with {@link #acquire()}. It must not be used anymore.
+     *
+     * @param scratch scratch object
+     */
+    public void release(T scratch) {
+        synchronized (free) {
+            free.add(scratch);
+        }
+    }
+}
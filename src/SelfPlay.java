@@ -0,0 +1,102 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs many simulated games in parallel on a thread pool. Useful for tuning the constants of
+ * {@link MyBot}; note that these are static, so all games of one batch share the same values.
+ */
+public class SelfPlay {
+    /**
+     * Plays a batch of games on the same map.
+     * 
+     * @param gameMap map to play on
+     * @param factories one bot factory per player, in player order
+     * @param games number of games to play
+     * @param turns maximum number of turns of each game
+     * @param threads number of games played at the same time
+     * @param seed seed of the first game, incremented for each following game
+     * 
+     * @return outcome of each game, in game order
+     * 
+     * @throws InterruptedException if interrupted while waiting for the games to finish
+     * @throws ExecutionException if a game could not be played
+     */
+    public static List<GameResult> playGames(final GameMap gameMap, final BotFactory[] factories,
+            int games, final int turns, int threads, long seed)
+            throws InterruptedException, ExecutionException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<GameResult>> futures = new ArrayList<Future<GameResult>>();
+            for (int game = 0; game < games; game++) {
+                final long gameSeed = seed + game;
+                futures.add(pool.submit(new Callable<GameResult>() {
+                    @Override
+                    public GameResult call() {
+                        Bot[] bots = new Bot[factories.length];
+                        for (int player = 0; player < bots.length; player++) {
+                            bots[player] = factories[player].createBot();
+                        }
+                        return new Simulator(gameMap, bots, turns, gameSeed).play();
+                    }
+                }));
+            }
+            List<GameResult> results = new ArrayList<GameResult>();
+            for (Future<GameResult> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } finally {
+            pool.shutdown();
+        }
+    }
+    
+    /**
+     * Plays {@link MyBot} against itself and prints the average score of each player.
+     * 
+     * @param args map file, followed by optional number of games, turns and threads
+     * 
+     * @throws Exception if the map cannot be loaded or a game could not be played
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("usage: java SelfPlay <map> [games] [turns] [threads]");
+            System.exit(1);
+        }
+        GameMap gameMap = GameMap.load(args[0]);
+        int games = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        int turns = args.length > 2 ? Integer.parseInt(args[2]) : 500;
+        int threads = args.length > 3 ? Integer.parseInt(args[3])
+            : Runtime.getRuntime().availableProcessors();
+        BotFactory[] factories = new BotFactory[gameMap.getPlayers()];
+        for (int player = 0; player < factories.length; player++) {
+            factories[player] = new BotFactory() {
+                @Override
+                public Bot createBot() {
+                    return new MyBot();
+                }
+            };
+        }
+        long start = System.currentTimeMillis();
+        List<GameResult> results = playGames(gameMap, factories, games, turns, threads, 0);
+        long elapsed = System.currentTimeMillis() - start;
+        
+        double[] scores = new double[gameMap.getPlayers()];
+        int turnsPlayed = 0;
+        for (GameResult result : results) {
+            turnsPlayed += result.getTurns();
+            for (int player = 0; player < scores.length; player++) {
+                scores[player] += result.getScore(player);
+            }
+        }
+        System.out.println(games + " games, " + turnsPlayed + " turns in " + elapsed + " ms");
+        for (int player = 0; player < scores.length; player++) {
+            System.out.printf("player %d: average score %.2f%n", player, scores[player] / games);
+        }
+    }
+}
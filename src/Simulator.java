@@ -0,0 +1,431 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Plays a complete game in-process, driving {@link Bot} instances through the same callbacks the
+ * input parser uses. Implements movement with collisions, focus combat, hill razing, spawning,
+ * food gathering, food spawning and fog of war.
+ */
+public class Simulator {
+    /** Default timeout for initializing and setting up the bot on turn 0. */
+    public static final int LOAD_TIME = 3000;
+
+    /** Default timeout for a single game turn. */
+    public static final int TURN_TIME = 500;
+
+    /** Default squared view radius of each ant. */
+    public static final int VIEW_RADIUS2 = 77;
+
+    /** Default squared attack radius of each ant. */
+    public static final int ATTACK_RADIUS2 = 5;
+
+    /** Default squared spawn radius of each ant. */
+    public static final int SPAWN_RADIUS2 = 1;
+
+    /** Default number of food items spawned per player and turn. */
+    public static final double FOOD_RATE = 0.25;
+
+    private static final int FOOD_SPAWN_ATTEMPTS = 100;
+
+    private final GameMap gameMap;
+
+    private final Bot[] bots;
+
+    private final int players;
+
+    private final int turns;
+
+    private final Random random;
+
+    /** Holds water and provides map geometry; ants and food are tracked below. */
+    private final Ants world;
+
+    private final List<Tile> viewOffsets;
+
+    private final List<Tile> attackOffsets;
+
+    private final List<Tile> spawnOffsets;
+
+    private final Map<Tile, Integer> ants = new HashMap<Tile, Integer>();
+
+    private final Map<Tile, Integer> hills = new HashMap<Tile, Integer>();
+
+    private final Set<Tile> food = new HashSet<Tile>();
+
+    private final Map<Tile, Integer> deadAnts = new HashMap<Tile, Integer>();
+
+    private final boolean[][][] seenWater;
+
+    private final boolean[][] visible;
+
+    private final int[] scores;
+
+    private final int[] foodStock;
+
+    private final int[] timeouts;
+
+    private final boolean[] crashed;
+
+    private double foodToSpawn;
+
+    /**
+     * Creates new {@link Simulator} object.
+     *
+     * @param gameMap map to play on
+     * @param bots one fresh bot per player, in player order
+     * @param turns maximum number of turns the game will be played
+     * @param seed seed for food spawning
+     */
+    public Simulator(GameMap gameMap, Bot[] bots, int turns, long seed) {
+        if (bots.length != gameMap.getPlayers()) {
+            throw new IllegalArgumentException("map needs " + gameMap.getPlayers()
+                + " players, got " + bots.length + " bots");
+        }
+        this.gameMap = gameMap;
+        this.bots = bots;
+        this.players = bots.length;
+        this.turns = turns;
+        this.random = new Random(seed);
+        int rows = gameMap.getRows();
+        int cols = gameMap.getCols();
+        world = new Ants(LOAD_TIME, TURN_TIME, rows, cols, turns, VIEW_RADIUS2, ATTACK_RADIUS2,
+            SPAWN_RADIUS2);
+        viewOffsets = new ArrayList<Tile>(world.getTilesFromRadius(VIEW_RADIUS2));
+        attackOffsets = new ArrayList<Tile>(world.getTilesFromRadius(ATTACK_RADIUS2));
+        spawnOffsets = new ArrayList<Tile>(world.getTilesFromRadius(SPAWN_RADIUS2));
+        seenWater = new boolean[players][rows][cols];
+        visible = new boolean[rows][cols];
+        scores = new int[players];
+        foodStock = new int[players];
+        timeouts = new int[players];
+        crashed = new boolean[players];
+        loadMap();
+    }
+
+    /**
+     * Plays the game until a single player is left or the turn limit is reached.
+     *
+     * @return outcome of the game
+     */
+    public GameResult play() {
+        for (int player = 0; player < players; player++) {
+            Bot bot = bots[player];
+            try {
+                bot.setup(LOAD_TIME, TURN_TIME, gameMap.getRows(), gameMap.getCols(), turns,
+                    VIEW_RADIUS2, ATTACK_RADIUS2, SPAWN_RADIUS2);
+                bot.doTurn();
+            } catch (RuntimeException e) {
+                crash(player, 0, e);
+            }
+        }
+        int turn = 0;
+        while (turn < turns && countAlivePlayers() > 1) {
+            turn++;
+            List<List<Order>> orders = playTurn(turn);
+            deadAnts.clear();
+            moveAnts(orders);
+            attack();
+            razeHills();
+            spawnAnts();
+            gatherFood();
+            spawnFood();
+        }
+        for (int player = 0; player < players; player++) {
+            if (!crashed[player]) {
+                bots[player].endGame();
+            }
+        }
+        int[] antCounts = new int[players];
+        for (int owner : ants.values()) {
+            antCounts[owner]++;
+        }
+        return new GameResult(turn, scores, antCounts, timeouts, crashed);
+    }
+
+    /**
+     * Sends each active player its view of the game and collects the orders it issues.
+     */
+    private List<List<Order>> playTurn(int turn) {
+        List<List<Order>> orders = new ArrayList<List<Order>>(players);
+        for (int player = 0; player < players; player++) {
+            orders.add(new ArrayList<Order>());
+            if (crashed[player] || !isAlive(player)) {
+                continue;
+            }
+            Bot bot = bots[player];
+            try {
+                bot.beforeUpdate();
+                sendState(bot, player);
+                bot.afterUpdate();
+                long start = System.currentTimeMillis();
+                bot.doTurn();
+                if (System.currentTimeMillis() - start > TURN_TIME) {
+                    timeouts[player]++;
+                }
+                orders.get(player).addAll(bot.getAnts().getOrders());
+            } catch (RuntimeException e) {
+                crash(player, turn, e);
+            }
+        }
+        return orders;
+    }
+
+    /**
+     * Reports everything within view radius of the player's ants, with player ids renumbered so
+     * that the player always sees itself as player 0.
+     */
+    private void sendState(Bot bot, int player) {
+        int rows = gameMap.getRows();
+        int cols = gameMap.getCols();
+        for (boolean[] row : visible) {
+            Arrays.fill(row, false);
+        }
+        for (Map.Entry<Tile, Integer> ant : ants.entrySet()) {
+            if (ant.getValue() == player) {
+                for (Tile offset : viewOffsets) {
+                    Tile tile = world.getTile(ant.getKey(), offset);
+                    visible[tile.getRow()][tile.getCol()] = true;
+                }
+            }
+        }
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                if (visible[row][col] && !seenWater[player][row][col]
+                        && world.getIlk(world.getTile(row, col)) == Ilk.WATER) {
+                    seenWater[player][row][col] = true;
+                    bot.addWater(row, col);
+                }
+            }
+        }
+        for (Tile tile : food) {
+            if (visible[tile.getRow()][tile.getCol()]) {
+                bot.addFood(tile.getRow(), tile.getCol());
+            }
+        }
+        for (Map.Entry<Tile, Integer> hill : hills.entrySet()) {
+            Tile tile = hill.getKey();
+            if (visible[tile.getRow()][tile.getCol()]) {
+                bot.addHill(tile.getRow(), tile.getCol(), relativeOwner(hill.getValue(), player));
+            }
+        }
+        for (Map.Entry<Tile, Integer> ant : ants.entrySet()) {
+            Tile tile = ant.getKey();
+            if (visible[tile.getRow()][tile.getCol()]) {
+                bot.addAnt(tile.getRow(), tile.getCol(), relativeOwner(ant.getValue(), player));
+            }
+        }
+        for (Map.Entry<Tile, Integer> dead : deadAnts.entrySet()) {
+            Tile tile = dead.getKey();
+            if (visible[tile.getRow()][tile.getCol()]) {
+                bot.removeAnt(tile.getRow(), tile.getCol(), relativeOwner(dead.getValue(), player));
+            }
+        }
+    }
+
+    /**
+     * Moves ants according to valid orders. Ants ending up on the same tile all die.
+     */
+    private void moveAnts(List<List<Order>> orders) {
+        Map<Tile, Tile> moves = new HashMap<Tile, Tile>();
+        for (int player = 0; player < players; player++) {
+            for (Order order : orders.get(player)) {
+                Tile from = world.getTile(order.getRow(), order.getCol());
+                Integer owner = ants.get(from);
+                if (owner == null || owner != player || moves.containsKey(from)) {
+                    continue;
+                }
+                Tile to = world.getTile(from, order.getDirection());
+                if (world.getIlk(to) != Ilk.WATER) {
+                    moves.put(from, to);
+                }
+            }
+        }
+        Map<Tile, Integer> occupants = new HashMap<Tile, Integer>();
+        Map<Tile, Integer> moved = new HashMap<Tile, Integer>();
+        for (Map.Entry<Tile, Integer> ant : ants.entrySet()) {
+            Tile to = moves.containsKey(ant.getKey()) ? moves.get(ant.getKey()) : ant.getKey();
+            Integer count = occupants.get(to);
+            occupants.put(to, count == null ? 1 : count + 1);
+            moved.put(to, ant.getValue());
+        }
+        ants.clear();
+        for (Map.Entry<Tile, Integer> ant : moved.entrySet()) {
+            if (occupants.get(ant.getKey()) > 1) {
+                deadAnts.put(ant.getKey(), ant.getValue());
+            } else {
+                ants.put(ant.getKey(), ant.getValue());
+            }
+        }
+    }
+
+    /**
+     * Resolves focus combat: an ant dies if any enemy in attack range is fighting as many or fewer
+     * enemies than the ant itself.
+     */
+    private void attack() {
+        Map<Tile, List<Tile>> enemies = new HashMap<Tile, List<Tile>>();
+        for (Map.Entry<Tile, Integer> ant : ants.entrySet()) {
+            List<Tile> nearby = new ArrayList<Tile>();
+            for (Tile offset : attackOffsets) {
+                Tile tile = world.getTile(ant.getKey(), offset);
+                Integer owner = ants.get(tile);
+                if (owner != null && !owner.equals(ant.getValue())) {
+                    nearby.add(tile);
+                }
+            }
+            enemies.put(ant.getKey(), nearby);
+        }
+        List<Tile> killed = new ArrayList<Tile>();
+        for (Map.Entry<Tile, List<Tile>> ant : enemies.entrySet()) {
+            int weakness = ant.getValue().size();
+            for (Tile enemy : ant.getValue()) {
+                if (enemies.get(enemy).size() <= weakness) {
+                    killed.add(ant.getKey());
+                    break;
+                }
+            }
+        }
+        for (Tile tile : killed) {
+            deadAnts.put(tile, ants.remove(tile));
+        }
+    }
+
+    /**
+     * Razes hills with an enemy ant standing on them.
+     */
+    private void razeHills() {
+        Iterator<Map.Entry<Tile, Integer>> hillIter = hills.entrySet().iterator();
+        while (hillIter.hasNext()) {
+            Map.Entry<Tile, Integer> hill = hillIter.next();
+            Integer razer = ants.get(hill.getKey());
+            if (razer != null && !razer.equals(hill.getValue())) {
+                scores[hill.getValue()]--;
+                scores[razer] += 2;
+                hillIter.remove();
+            }
+        }
+    }
+
+    /**
+     * Spawns one ant on each unoccupied hill whose owner has gathered food.
+     */
+    private void spawnAnts() {
+        for (Map.Entry<Tile, Integer> hill : hills.entrySet()) {
+            int owner = hill.getValue();
+            if (foodStock[owner] > 0 && !ants.containsKey(hill.getKey())) {
+                ants.put(hill.getKey(), owner);
+                foodStock[owner]--;
+            }
+        }
+    }
+
+    /**
+     * Gives food to the only player with ants within spawn radius. Food contested by several
+     * players is destroyed.
+     */
+    private void gatherFood() {
+        for (Iterator<Tile> foodIter = food.iterator(); foodIter.hasNext();) {
+            Tile tile = foodIter.next();
+            int gatherer = -1;
+            boolean contested = false;
+            for (Tile offset : spawnOffsets) {
+                Integer owner = ants.get(world.getTile(tile, offset));
+                if (owner == null) {
+                    continue;
+                }
+                if (gatherer == -1) {
+                    gatherer = owner;
+                } else if (gatherer != owner) {
+                    contested = true;
+                }
+            }
+            if (gatherer != -1) {
+                if (!contested) {
+                    foodStock[gatherer]++;
+                }
+                foodIter.remove();
+            }
+        }
+    }
+
+    /**
+     * Spawns new food on random empty land tiles.
+     */
+    private void spawnFood() {
+        foodToSpawn += FOOD_RATE * players;
+        while (foodToSpawn >= 1) {
+            foodToSpawn--;
+            for (int attempt = 0; attempt < FOOD_SPAWN_ATTEMPTS; attempt++) {
+                Tile tile = world.getTile(random.nextInt(gameMap.getRows()),
+                    random.nextInt(gameMap.getCols()));
+                if (world.getIlk(tile) != Ilk.WATER && !ants.containsKey(tile)
+                        && !hills.containsKey(tile) && !food.contains(tile)) {
+                    food.add(tile);
+                    break;
+                }
+            }
+        }
+    }
+
+    private void loadMap() {
+        for (int row = 0; row < gameMap.getRows(); row++) {
+            for (int col = 0; col < gameMap.getCols(); col++) {
+                char cell = gameMap.getCell(row, col);
+                Tile tile = world.getTile(row, col);
+                if (cell == '%') {
+                    world.update(Ilk.WATER, tile);
+                } else if (cell == '*') {
+                    food.add(tile);
+                } else if (cell >= '0' && cell <= '9') {
+                    hills.put(tile, cell - '0');
+                } else if (cell >= 'a' && cell <= 'j') {
+                    ants.put(tile, cell - 'a');
+                } else if (cell >= 'A' && cell <= 'J') {
+                    hills.put(tile, cell - 'A');
+                    ants.put(tile, cell - 'A');
+                }
+            }
+        }
+        // every player starts with one hill point, and one ant per hill if the map has none
+        boolean hasAnts = !ants.isEmpty();
+        for (Map.Entry<Tile, Integer> hill : hills.entrySet()) {
+            scores[hill.getValue()]++;
+            if (!hasAnts) {
+                ants.put(hill.getKey(), hill.getValue());
+            }
+        }
+    }
+
+    private void crash(int player, int turn, RuntimeException e) {
+        crashed[player] = true;
+        System.err.println("player " + player + " crashed in turn " + turn + ": " + e);
+    }
+
+    private boolean isAlive(int player) {
+        if (ants.containsValue(player)) {
+            return true;
+        }
+        return foodStock[player] > 0 && hills.containsValue(player);
+    }
+
+    private int countAlivePlayers() {
+        int alive = 0;
+        for (int player = 0; player < players; player++) {
+            if (isAlive(player)) {
+                alive++;
+            }
+        }
+        return alive;
+    }
+
+    private int relativeOwner(int owner, int player) {
+        return (owner - player + players) % players;
+    }
+}
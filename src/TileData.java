@@ -1,39 +1,37 @@
-/** 
- * Holds information on a tile 
+/**
+ * Encodes information on a tile into a single short, so that game maps
+ * can be stored as flat primitive arrays. The lowest bits hold the ilk,
+ * the remaining bits hold the owner + 1 (0 = no owner).
  */
-public class TileData {
-	int owner = -1;
-	Ilk type;
-	
-	public TileData(Ilk type) {		
-		this.type = type;		
+public final class TileData {
+	private static final int ILK_BITS = 3;
+	private static final int ILK_MASK = (1 << ILK_BITS) - 1;
+	private static final Ilk[] ILKS = Ilk.values();
+
+	/** Land tile without an owner. */
+	public static final short LAND = encode(Ilk.LAND, -1);
+
+	private TileData() {
 	}
-	
-	public TileData(Ilk type, int owner) {
-		this(type);
-		this.owner = owner;
+
+	public static short encode(Ilk type) {
+		return encode(type, -1);
 	}
-	
-	public Ilk getType() {
-		return type;
+
+	public static short encode(Ilk type, int owner) {
+		return (short) (((owner + 1) << ILK_BITS) | type.ordinal());
 	}
-	
-	public int getOwner() {
-		return owner;
+
+	public static Ilk getType(short data) {
+		return ILKS[data & ILK_MASK];
 	}
-	
-	public boolean isAnt() {
-		return (type == Ilk.MY_ANT || type == Ilk.ENEMY_ANT);
+
+	public static int getOwner(short data) {
+		return (data >> ILK_BITS) - 1;
 	}
-	
-	public boolean equals(Object o) {
-		if(o instanceof TileData) {
-			TileData td = (TileData) o;
-			return type.equals(td.type);
-		} else if(o instanceof Ilk) {
-			return type.equals((Ilk) o);
-		} else {
-			return false;
-		}
+
+	public static boolean isAnt(short data) {
+		Ilk type = getType(data);
+		return (type == Ilk.MY_ANT || type == Ilk.ENEMY_ANT);
 	}
 }
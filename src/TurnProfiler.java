@@ -0,0 +1,124 @@
+import java.io.PrintStream;
+
+/**
+ * Collects how long each {@link Phase} of a turn takes. Durations are kept in log-linear
+ * histograms with eight buckets per power of two, which bounds the reported percentiles to
+ * within 12.5% of the measured values. Recording does not allocate.
+ */
+public class TurnProfiler {
+    private static final int SUB_BUCKET_BITS = 3;
+    
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+    
+    private static final Phase[] PHASES = Phase.values();
+    
+    private final long[][] counts = new long[PHASES.length][BUCKETS];
+    
+    private final long[] totals = new long[PHASES.length];
+    
+    private final long[] max = new long[PHASES.length];
+    
+    private long turnStart;
+    
+    private long lapStart;
+    
+    /**
+     * Starts measuring a new turn and its first phase.
+     */
+    public void beginTurn() {
+        turnStart = System.nanoTime();
+        lapStart = turnStart;
+    }
+    
+    /**
+     * Records the time since the previous lap, or the beginning of the turn, as the duration of
+     * the specified phase and starts measuring the next phase.
+     * 
+     * @param phase phase which has just finished
+     */
+    public void lap(Phase phase) {
+        long now = System.nanoTime();
+        record(phase, now - lapStart);
+        lapStart = now;
+    }
+    
+    /**
+     * Records the duration of the whole turn.
+     */
+    public void endTurn() {
+        record(Phase.TURN, System.nanoTime() - turnStart);
+    }
+    
+    /**
+     * Records a single duration.
+     * 
+     * @param phase measured phase
+     * @param nanos duration in nanoseconds
+     */
+    public void record(Phase phase, long nanos) {
+        int ordinal = phase.ordinal();
+        counts[ordinal][bucket(nanos)]++;
+        totals[ordinal]++;
+        if (nanos > max[ordinal]) {
+            max[ordinal] = nanos;
+        }
+    }
+    
+    /**
+     * Returns an upper bound of the specified percentile of a phase's durations.
+     * 
+     * @param phase measured phase
+     * @param percentile percentile between 0 and 1
+     * 
+     * @return percentile in nanoseconds, or 0 if the phase has not been recorded
+     */
+    public long getPercentile(Phase phase, double percentile) {
+        int ordinal = phase.ordinal();
+        long rank = (long)Math.ceil(percentile * totals[ordinal]);
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += counts[ordinal][bucket];
+            if (seen > 0 && seen >= rank) {
+                return Math.min(upperBound(bucket), max[ordinal]);
+            }
+        }
+        return 0;
+    }
+    
+    /**
+     * Prints count, p50, p95 and max duration of every recorded phase.
+     * 
+     * @param out stream the report is printed to
+     */
+    public void report(PrintStream out) {
+        out.printf("%-16s %8s %10s %10s %10s%n", "phase", "count", "p50 ms", "p95 ms", "max ms");
+        for (Phase phase : PHASES) {
+            if (totals[phase.ordinal()] == 0) {
+                continue;
+            }
+            out.printf("%-16s %8d %10.3f %10.3f %10.3f%n", phase.getLabel(),
+                totals[phase.ordinal()], getPercentile(phase, 0.5) / 1e6,
+                getPercentile(phase, 0.95) / 1e6, max[phase.ordinal()] / 1e6);
+        }
+    }
+    
+    private static int bucket(long nanos) {
+        if (nanos < SUB_BUCKETS) {
+            return (int)Math.max(nanos, 0);
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        int subBucket = (int)(nanos >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+    
+    private static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        int subBucket = bucket % SUB_BUCKETS;
+        return ((long)(SUB_BUCKETS + subBucket + 1) << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+}
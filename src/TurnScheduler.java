@@ -0,0 +1,83 @@
+/**
+ * Splits the time left in a turn into budgets for the phases of the turn. A share of the turn time
+ * is always held back, so that queued orders can still be sent once the deadline has passed.
+ */
+public class TurnScheduler {
+    /** Minimum time held back for sending orders, in milliseconds. */
+    private static final int MIN_RESERVE = 20;
+    
+    /** Share of the turn time held back for sending orders. */
+    private static final double RESERVE_SHARE = 0.1;
+    
+    private static final long NANOS_PER_MILLI = 1000000L;
+    
+    private long turnNanos;
+    
+    private long deadline;
+    
+    private long phaseDeadline;
+    
+    /**
+     * Starts scheduling a new turn.
+     * 
+     * @param ants game state holding the turn time and turn start time
+     */
+    public void beginTurn(Ants ants) {
+        long now = System.nanoTime();
+        int reserve = Math.max(MIN_RESERVE, (int)(ants.getTurnTime() * RESERVE_SHARE));
+        turnNanos = ants.getTurnTime() * NANOS_PER_MILLI;
+        deadline = now + (ants.getTimeRemaining() - reserve) * NANOS_PER_MILLI;
+        phaseDeadline = deadline;
+    }
+    
+    /**
+     * Starts a phase which may use the specified share of the turn time, but never more than is
+     * left before the deadline.
+     * 
+     * @param share share of the turn time, between 0 and 1
+     */
+    public void beginPhase(double share) {
+        phaseDeadline = Math.min(deadline, System.nanoTime() + (long)(share * turnNanos));
+    }
+    
+    /**
+     * Returns the time at which a task given the specified share of the turn time must stop, but
+     * never later than the end of the current phase.
+     * 
+     * @param share share of the turn time, between 0 and 1
+     * 
+     * @return deadline of the task as {@link System#nanoTime()}
+     */
+    public long getTaskDeadline(double share) {
+        return Math.min(phaseDeadline, System.nanoTime() + (long)(share * turnNanos));
+    }
+    
+    /**
+     * Checks if there is at least the specified share of the turn time left before the deadline.
+     * 
+     * @param share share of the turn time, between 0 and 1
+     * 
+     * @return <code>true</code> if there is enough time left
+     */
+    public boolean hasTimeFor(double share) {
+        return deadline - System.nanoTime() >= (long)(share * turnNanos);
+    }
+    
+    /**
+     * Checks if the budget of the current phase has been used up.
+     * 
+     * @return <code>true</code> if the current phase should stop
+     */
+    public boolean isPhaseExpired() {
+        return System.nanoTime() >= phaseDeadline;
+    }
+    
+    /**
+     * Checks if the deadline of the turn has passed, so that only queued orders should be sent.
+     * 
+     * @return <code>true</code> if the turn should end
+     */
+    public boolean isExpired() {
+        return System.nanoTime() >= deadline;
+    }
+}
@@ -0,0 +1,83 @@
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool of daemon worker threads shared by all bots, for work within a turn that can run on the
+ * idle cores. There is one thread less than there are cores, since the submitting thread keeps
+ * working too; on a single core tasks simply run on the submitting thread. The threads never
+ * keep the JVM alive, so the pool is never shut down.
+ */
+public final class WorkerPool {
+    private static final int THREADS = Runtime.getRuntime().availableProcessors() - 1;
+
+    private static final ExecutorService EXECUTOR = THREADS < 1 ? null
+        : Executors.newFixedThreadPool(THREADS, new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable task) {
+                Thread thread = new Thread(task, "worker-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+
+    private WorkerPool() {
+    }
+
+    /**
+     * Returns the number of worker threads.
+     *
+     * @return number of worker threads, 0 if tasks run on the submitting thread
+     */
+    public static int getThreads() {
+        return THREADS;
+    }
+
+    /**
+     * Runs a task on one of the worker threads, or right away if there are none.
+     *
+     * @param task task to run
+     *
+     * @return future of the task's result
+     */
+    public static <T> Future<T> submit(Callable<T> task) {
+        if (EXECUTOR == null) {
+            FutureTask<T> future = new FutureTask<T>(task);
+            future.run();
+            return future;
+        }
+        return EXECUTOR.submit(task);
+    }
+
+    /**
+     * Waits for a submitted task to finish. Exceptions thrown by the task are rethrown unchecked.
+     *
+     * @param future future of the task
+     *
+     * @return result of the task
+     */
+    public static <T> T join(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+}
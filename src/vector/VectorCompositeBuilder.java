@@ -0,0 +1,36 @@
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link CompositeBuilder} whose row kernels use the JDK Vector API. Kept out of the default
+ * build since it needs the jdk.incubator.vector module: "make vector" compiles it, and the bot
+ * picks it up when run with --add-modules jdk.incubator.vector.
+ */
+public class VectorCompositeBuilder extends CompositeBuilder {
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+    @Override
+    protected void scale(int[] in, int weight, int[] out) {
+        int bound = SPECIES.loopBound(out.length);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            IntVector.fromArray(SPECIES, in, i).mul(weight).intoArray(out, i);
+        }
+        for (; i < out.length; i++) {
+            out[i] = in[i] * weight;
+        }
+    }
+
+    @Override
+    protected void addScaled(int[] in, int weight, int[] out) {
+        int bound = SPECIES.loopBound(out.length);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            IntVector.fromArray(SPECIES, in, i).mul(weight)
+                .add(IntVector.fromArray(SPECIES, out, i)).intoArray(out, i);
+        }
+        for (; i < out.length; i++) {
+            out[i] += in[i] * weight;
+        }
+    }
+}
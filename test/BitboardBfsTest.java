@@ -0,0 +1,47 @@
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares the distances of {@link BitboardBfs} with the breadth-first search of
+ * {@link BfsEngine}. Maps range from a single row or column to widths of several bitboard words,
+ * and water is added between searches, so the cached terrain of the bitboards must follow it.
+ */
+public class BitboardBfsTest {
+    private static final String TEST = "BitboardBfsTest";
+
+    private static final int TRIALS = 400;
+
+    private static final int SEARCHES = 4;
+
+    /**
+     * Runs the comparison.
+     *
+     * @param args optional seed of the random maps
+     */
+    public static void main(String[] args) {
+        Random random = TestSupport.random(args);
+        for (int trial = 0; trial < TRIALS; trial++) {
+            Ants ants = TestSupport.randomMap(random, 70, 200, 0.2);
+            int rows = ants.getRows();
+            int cols = ants.getCols();
+            short[] map = ants.copyMap();
+            BitboardBfs bitboardBfs = new BitboardBfs(rows, cols, map);
+            for (int search = 0; search < SEARCHES; search++) {
+                List<Tile> sources = TestSupport.randomTiles(ants, random, random.nextInt(6));
+                int[] indices = new int[sources.size()];
+                for (int i = 0; i < indices.length; i++) {
+                    indices[i] = ants.getIndex(sources.get(i));
+                }
+                int[][] costMap = TestSupport.randomGrid(ants, random, 0, 9);
+                bitboardBfs.bfs(indices, indices.length, search, costMap);
+                TestSupport.assertGrid(TEST, ants.bfs(sources, null), costMap, "search " + search
+                    + " of trial " + trial + " on a " + rows + "x" + cols + " map");
+
+                // the map is read again only for a new terrain version.
+                TestSupport.addWater(ants, random, random.nextInt(rows * cols / 20 + 1));
+                System.arraycopy(ants.copyMap(), 0, map, 0, map.length);
+            }
+        }
+        TestSupport.pass(TEST, TRIALS + " trials");
+    }
+}
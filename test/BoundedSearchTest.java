@@ -0,0 +1,114 @@
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Compares the depth-bounded searches behind {@link Ants#bfsNearestTileType(Tile, Ilk, int)} and
+ * {@link Ants#bfsIlkSearch(Tile, int, Ilk)} with a plain breadth-first search over the whole map,
+ * cut off at the same number of steps. The nearest tile found must be at the smallest distance of
+ * any tile of its type, and the tiles listed by the ilk search must be exactly those within the
+ * cap, nearest first.
+ */
+public class BoundedSearchTest {
+    private static final String TEST = "BoundedSearchTest";
+
+    private static final int TRIALS = 300;
+
+    private static final int STARTS = 10;
+
+    private static final Ilk[] ILKS = { Ilk.MY_ANT, Ilk.ENEMY_ANT, Ilk.FOOD };
+
+    /**
+     * Runs the comparison.
+     *
+     * @param args optional seed of the random maps
+     */
+    public static void main(String[] args) {
+        Random random = TestSupport.random(args);
+        int found = 0;
+        int missed = 0;
+        for (int trial = 0; trial < TRIALS; trial++) {
+            Ants ants = TestSupport.randomMap(random, 40, 40, 0.25);
+            for (Ilk ilk : ILKS) {
+                for (Tile tile : TestSupport.randomTiles(ants, random, random.nextInt(12))) {
+                    if (ants.getIlk(tile).isPassable()) {
+                        ants.update(ilk, tile, ilk == Ilk.ENEMY_ANT ? 1 : 0);
+                    }
+                }
+            }
+            for (int i = 0; i < STARTS; i++) {
+                Tile start = TestSupport.randomTile(ants, random);
+                Ilk ilk = ILKS[random.nextInt(ILKS.length)];
+                int maxSteps = random.nextInt(12);
+                int[] distances = TestSupport.distances(ants, start);
+                String context = ilk + " within " + maxSteps + " steps of " + start.getRow() + ","
+                    + start.getCol() + " in trial " + trial;
+
+                // nearest tile of the type, other than the start tile.
+                int nearest = -1;
+                int unbounded = -1;
+                for (int index = 0; index < distances.length; index++) {
+                    if (distances[index] <= 0 || ants.getIlk(ants.getTile(index)) != ilk) {
+                        continue;
+                    }
+                    if (unbounded == -1 || distances[index] < unbounded) {
+                        unbounded = distances[index];
+                    }
+                    if (distances[index] <= maxSteps && (nearest == -1
+                            || distances[index] < nearest)) {
+                        nearest = distances[index];
+                    }
+                }
+                checkNearest(ants, ants.bfsNearestTileType(start, ilk, maxSteps), ilk, nearest,
+                    distances, "nearest " + context);
+                checkNearest(ants, ants.bfsNearestTileType(start, ilk), ilk, unbounded, distances,
+                    "unbounded nearest " + context);
+                if (nearest == -1) {
+                    missed++;
+                } else {
+                    found++;
+                }
+
+                // every tile of the type within the cap, the start tile at depth 1.
+                int cap = maxSteps + 1;
+                List<Tile> tiles = ants.bfsIlkSearch(start, cap, ilk);
+                Set<Tile> expected = new HashSet<Tile>();
+                for (int index = 0; index < distances.length; index++) {
+                    if (distances[index] != -1 && distances[index] < cap
+                            && ants.getIlk(ants.getTile(index)) == ilk) {
+                        expected.add(ants.getTile(index));
+                    }
+                }
+                TestSupport.assertEquals(TEST, expected, new HashSet<Tile>(tiles),
+                    "ilk search for " + context);
+                TestSupport.assertEquals(TEST, expected.size(), tiles.size(),
+                    "size of ilk search for " + context);
+                for (int j = 1; j < tiles.size(); j++) {
+                    TestSupport.assertTrue(TEST, distances[ants.getIndex(tiles.get(j - 1))]
+                        <= distances[ants.getIndex(tiles.get(j))],
+                        "order of ilk search for " + context);
+                }
+            }
+        }
+        TestSupport.assertTrue(TEST, found > 0 && missed > 0, "searches all found or all missed");
+        TestSupport.pass(TEST, TRIALS * STARTS + " starts, " + found + " found within the cap, "
+            + missed + " not");
+    }
+
+    /**
+     * Checks a nearest tile against the smallest distance of any tile of the type, or -1 if no
+     * tile should have been found.
+     */
+    private static void checkNearest(Ants ants, Tile tile, Ilk ilk, int distance, int[] distances,
+            String context) {
+        if (distance == -1) {
+            TestSupport.assertEquals(TEST, null, tile, context);
+            return;
+        }
+        TestSupport.assertTrue(TEST, tile != null, context + ": nothing found");
+        TestSupport.assertEquals(TEST, ilk, ants.getIlk(tile), "type of " + context);
+        TestSupport.assertEquals(TEST, distance, distances[ants.getIndex(tile)],
+            "distance of " + context);
+    }
+}
@@ -0,0 +1,113 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Compares the engine {@link Ants#predictCombat(Map, java.util.Collection)} loads around one
+ * battle cluster with the engine {@link Ants#predictCombat(Map)} loads from the whole map, under
+ * the same random orders. Orders of ants outside the two rings the cluster loads are skipped, so
+ * the ants of the cluster must still count the same enemies and get the same verdicts, both as
+ * loaded and after each of them has taken a random step in both engines.
+ */
+public class ClusterCombatTest {
+    private static final String TEST = "ClusterCombatTest";
+
+    private static final int TRIALS = 300;
+
+    /**
+     * Runs the comparison.
+     *
+     * @param args optional seed of the random maps
+     */
+    public static void main(String[] args) {
+        Random random = TestSupport.random(args);
+        int clusters = 0;
+        int skipped = 0;
+        for (int trial = 0; trial < TRIALS; trial++) {
+            Ants ants = TestSupport.randomMap(random, 40, 40, 0.1);
+            int cells = ants.getRows() * ants.getCols();
+            TestSupport.addAnts(ants, random, random.nextInt(1 + cells / 8), 2 + random.nextInt(3));
+            Map<Tile, Tile> orders = TestSupport.randomOrders(ants, random);
+            List<Tile> mine = new ArrayList<Tile>(ants.getMyAnts());
+            mine.removeAll(orders.values());
+            List<Tile> enemies = new ArrayList<Tile>(ants.getEnemyAnts());
+            String context = "trial " + trial + " on a " + ants.getRows() + "x" + ants.getCols()
+                + " map";
+
+            List<BattleClusters.Cluster> partition =
+                new BattleClusters(ants).partition(enemies, mine);
+            checkPartition(ants, partition, context);
+            for (BattleClusters.Cluster cluster : partition) {
+                List<Tile> battle = new ArrayList<Tile>(cluster.getMine());
+                battle.addAll(cluster.getEnemies());
+                String at = "cluster " + battle + " in " + context;
+                CombatEngine full = ants.predictCombat(orders);
+                CombatEngine local = ants.predictCombat(orders, battle);
+                for (Tile target : orders.keySet()) {
+                    if (local.getAnt(ants.getIndex(target)) == -1) {
+                        skipped++;
+                    }
+                }
+
+                int[] positions = new int[battle.size()];
+                for (int i = 0; i < battle.size(); i++) {
+                    positions[i] = ants.getIndex(battle.get(i));
+                }
+                compare(full, local, positions, "loaded " + at);
+                for (int i = 0; i < positions.length; i++) {
+                    int to = ants.getNeighbor(positions[i], Aim.values()[random.nextInt(4)]);
+                    boolean moved = full.applyMove(positions[i], to);
+                    TestSupport.assertEquals(TEST, moved, local.applyMove(positions[i], to),
+                        "step of ant " + battle.get(i) + " in " + at);
+                    if (moved) {
+                        positions[i] = to;
+                    }
+                }
+                compare(full, local, positions, "stepped " + at);
+                ants.releaseCombatEngine(local);
+                ants.releaseCombatEngine(full);
+                clusters++;
+            }
+        }
+        TestSupport.assertTrue(TEST, skipped > 0, "no order was skipped");
+        TestSupport.pass(TEST, TRIALS + " trials, " + clusters + " clusters, " + skipped
+            + " orders skipped");
+    }
+
+    /**
+     * Checks that every enemy ant and every one of our ants within the extended attack radius of
+     * each other ended up in the same cluster.
+     */
+    private static void checkPartition(Ants ants, List<BattleClusters.Cluster> partition,
+            String context) {
+        for (BattleClusters.Cluster cluster : partition) {
+            for (BattleClusters.Cluster other : partition) {
+                if (other == cluster) {
+                    continue;
+                }
+                for (Tile enemy : other.getEnemies()) {
+                    for (Tile offset : ants.getExtendedCombatOffsets()) {
+                        TestSupport.assertTrue(TEST,
+                            !cluster.getMine().contains(ants.getTile(enemy, offset)),
+                            "enemy " + enemy + " split from an ant in reach in " + context);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void compare(CombatEngine full, CombatEngine local, int[] cells,
+            String context) {
+        for (int cell : cells) {
+            int expected = full.getAnt(cell);
+            int actual = local.getAnt(cell);
+            TestSupport.assertTrue(TEST, expected != -1 && actual != -1,
+                "ant at " + cell + " not loaded, " + context);
+            TestSupport.assertEquals(TEST, full.getEnemyCount(expected),
+                local.getEnemyCount(actual), "enemies of the ant at " + cell + ", " + context);
+            TestSupport.assertEquals(TEST, full.survives(expected), local.survives(actual),
+                "verdict of the ant at " + cell + ", " + context);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Compares the flat arrays of {@link CombatEngine} with the tile hash maps of
+ * {@link Ants#generateNearbyEnemies(short[], int)}. Every ant must count the same enemies and
+ * get the same verdict as {@link Ants#simulateBattleForAnt}, and every tile the same battle score
+ * as {@link Ants#simulateBattleForArea}, on the current map and on prediction maps of random
+ * orders. Maps smaller than the attack radius make the offsets wrap onto the same tiles.
+ */
+public class CombatEngineTest {
+    private static final String TEST = "CombatEngineTest";
+
+    private static final int TRIALS = 300;
+
+    /**
+     * Runs the comparison.
+     *
+     * @param args optional seed of the random maps
+     */
+    public static void main(String[] args) {
+        Random random = TestSupport.random(args);
+        int deaths = 0;
+        for (int trial = 0; trial < TRIALS; trial++) {
+            Ants ants = TestSupport.randomMap(random, 24, 24, 0.1);
+            int cells = ants.getRows() * ants.getCols();
+            TestSupport.addAnts(ants, random, random.nextInt(1 + cells / 3), 2 + random.nextInt(3));
+            String context = "trial " + trial + " on a " + ants.getRows() + "x" + ants.getCols()
+                + " map";
+
+            short[] map = ants.copyMap();
+            CombatEngine engine = ants.predictCombat(new HashMap<Tile, Tile>());
+            deaths += compare(ants, map, engine, context);
+            ants.releaseCombatEngine(engine);
+
+            ants.loadNearbyEnemies();
+            HashMap<Tile, List<Tile>> nearbyEnemies =
+                ants.generateNearbyEnemies(map, ants.getAttackRadius2());
+            for (int index = 0; index < cells; index++) {
+                Tile tile = ants.getTile(index);
+                TestSupport.assertEquals(TEST, ants.simulateBattleForArea(tile, map, nearbyEnemies,
+                    ants.getAttackRadius2()), ants.simulateBattleForArena(tile), "arena score at "
+                    + tile.getRow() + "," + tile.getCol() + " in " + context);
+            }
+
+            Map<Tile, Tile> orders = TestSupport.randomOrders(ants, random);
+            short[] predictionMap = ants.constructPredictionMap(orders);
+            engine = ants.predictCombat(orders);
+            deaths += compare(ants, predictionMap, engine, orders.size() + " orders in " + context);
+            ants.releaseCombatEngine(engine);
+        }
+        TestSupport.assertTrue(TEST, deaths > 0, "no ant died in any battle");
+        TestSupport.pass(TEST, TRIALS + " trials, " + deaths + " ants dying");
+    }
+
+    /**
+     * Compares a loaded engine with the hash map version on the same map.
+     *
+     * @return number of ants dying
+     */
+    private static int compare(Ants ants, short[] map, CombatEngine engine, String context) {
+        HashMap<Tile, List<Tile>> nearbyEnemies =
+            ants.generateNearbyEnemies(map, ants.getAttackRadius2());
+        TestSupport.assertEquals(TEST, nearbyEnemies.size(), engine.getAntCount(),
+            "ants loaded in " + context);
+        int deaths = 0;
+        for (int index = 0; index < map.length; index++) {
+            Tile tile = ants.getTile(index);
+            String at = tile.getRow() + "," + tile.getCol() + " in " + context;
+            int ant = engine.getAnt(index);
+            List<Tile> enemies = nearbyEnemies.get(tile);
+            TestSupport.assertEquals(TEST, enemies != null, ant != -1, "ant at " + at);
+            if (enemies != null) {
+                TestSupport.assertEquals(TEST, enemies.size(), engine.getEnemyCount(ant),
+                    "enemies of the ant at " + at);
+                boolean survives = ants.simulateBattleForAnt(tile, nearbyEnemies);
+                TestSupport.assertEquals(TEST, survives, engine.survives(ant),
+                    "verdict of the ant at " + at);
+                if (!survives) {
+                    deaths++;
+                }
+            }
+            TestSupport.assertEquals(TEST, ants.simulateBattleForArea(tile, map, nearbyEnemies,
+                ants.getAttackRadius2()), engine.simulateBattleForArea(index), "score at " + at);
+        }
+        return deaths;
+    }
+}
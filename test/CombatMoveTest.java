@@ -0,0 +1,142 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Applies random sequences of {@link CombatEngine#applyMove(int, int)} and
+ * {@link CombatEngine#undoMove()} to a loaded engine. After every move the enemy counts and
+ * verdicts must be those of a map with the moved ants, counted again with
+ * {@link Ants#generateNearbyEnemies(short[], int)}, and every undo must restore the enemy counts
+ * held before the move exactly.
+ */
+public class CombatMoveTest {
+    private static final String TEST = "CombatMoveTest";
+
+    private static final int TRIALS = 200;
+
+    private static final int STEPS = 40;
+
+    /**
+     * Runs the comparison.
+     *
+     * @param args optional seed of the random maps
+     */
+    public static void main(String[] args) {
+        Random random = TestSupport.random(args);
+        int moves = 0;
+        int undos = 0;
+        for (int trial = 0; trial < TRIALS; trial++) {
+            Ants ants = TestSupport.randomMap(random, 24, 24, 0.1);
+            int cells = ants.getRows() * ants.getCols();
+            TestSupport.addAnts(ants, random, 1 + random.nextInt(1 + cells / 4),
+                2 + random.nextInt(3));
+            String context = "trial " + trial + " on a " + ants.getRows() + "x" + ants.getCols()
+                + " map";
+
+            short[] map = ants.copyMap();
+            CombatEngine engine = ants.predictCombat(new HashMap<Tile, Tile>());
+            List<int[]> undoMoves = new ArrayList<int[]>();
+            List<int[]> countsBefore = new ArrayList<int[]>();
+            for (int step = 0; step < STEPS; step++) {
+                String at = "step " + step + " of " + context;
+                if (!undoMoves.isEmpty() && random.nextInt(3) == 0) {
+                    TestSupport.assertTrue(TEST, engine.undoMove(), "undo at " + at);
+                    int[] move = undoMoves.remove(undoMoves.size() - 1);
+                    map[move[0]] = map[move[1]];
+                    map[move[1]] = TileData.LAND;
+                    int[] counts = countsBefore.remove(countsBefore.size() - 1);
+                    for (int index = 0; index < cells; index++) {
+                        int ant = engine.getAnt(index);
+                        TestSupport.assertEquals(TEST, counts[index],
+                            ant == -1 ? -1 : engine.getEnemyCount(ant),
+                            "enemy count at " + index + " after undo at " + at);
+                    }
+                    undos++;
+                } else {
+                    int from = random.nextInt(8) == 0 ? random.nextInt(cells)
+                        : randomAnt(map, random);
+                    int to = ants.getNeighbor(from, Aim.values()[random.nextInt(4)]);
+                    boolean legal = TileData.isAnt(map[from]) && !TileData.isAnt(map[to])
+                        && TileData.getType(map[to]) != Ilk.WATER;
+                    if (!legal && TileData.getType(map[to]) == Ilk.WATER) {
+                        continue;
+                    }
+                    int[] counts = enemyCounts(engine, cells);
+                    TestSupport.assertEquals(TEST, legal, engine.applyMove(from, to),
+                        "move from " + from + " to " + to + " at " + at);
+                    if (legal) {
+                        map[to] = map[from];
+                        map[from] = TileData.LAND;
+                        undoMoves.add(new int[] { from, to });
+                        countsBefore.add(counts);
+                        moves++;
+                    }
+                }
+                TestSupport.assertEquals(TEST, undoMoves.size(), engine.getMoveCount(),
+                    "moves at " + at);
+                compare(ants, map, engine, at);
+            }
+            while (engine.undoMove()) {
+                int[] move = undoMoves.remove(undoMoves.size() - 1);
+                map[move[0]] = map[move[1]];
+                map[move[1]] = TileData.LAND;
+            }
+            compare(ants, map, engine, "all moves undone in " + context);
+            ants.releaseCombatEngine(engine);
+        }
+        TestSupport.pass(TEST, TRIALS + " trials, " + moves + " moves, " + undos + " undone");
+    }
+
+    /**
+     * Picks the tile of a random ant on the map, or any tile if there are no ants.
+     */
+    private static int randomAnt(short[] map, Random random) {
+        List<Integer> cells = new ArrayList<Integer>();
+        for (int index = 0; index < map.length; index++) {
+            if (TileData.isAnt(map[index])) {
+                cells.add(index);
+            }
+        }
+        if (cells.isEmpty()) {
+            return random.nextInt(map.length);
+        }
+        return cells.get(random.nextInt(cells.size()));
+    }
+
+    /**
+     * Returns the enemy count of the ant on every tile, or -1 where there is none.
+     */
+    private static int[] enemyCounts(CombatEngine engine, int cells) {
+        int[] counts = new int[cells];
+        for (int index = 0; index < cells; index++) {
+            int ant = engine.getAnt(index);
+            counts[index] = ant == -1 ? -1 : engine.getEnemyCount(ant);
+        }
+        return counts;
+    }
+
+    /**
+     * Compares the moved engine with the enemies counted again on the moved map.
+     */
+    private static void compare(Ants ants, short[] map, CombatEngine engine, String context) {
+        HashMap<Tile, List<Tile>> nearbyEnemies =
+            ants.generateNearbyEnemies(map, ants.getAttackRadius2());
+        for (int index = 0; index < map.length; index++) {
+            Tile tile = ants.getTile(index);
+            String at = tile.getRow() + "," + tile.getCol() + " in " + context;
+            int ant = engine.getAnt(index);
+            List<Tile> enemies = nearbyEnemies.get(tile);
+            TestSupport.assertEquals(TEST, enemies != null, ant != -1, "ant at " + at);
+            if (enemies != null) {
+                TestSupport.assertEquals(TEST, enemies.size(), engine.getEnemyCount(ant),
+                    "enemies of the ant at " + at);
+                TestSupport.assertEquals(TEST, ants.simulateBattleForAnt(tile, nearbyEnemies),
+                    engine.survives(ant), "verdict of the ant at " + at);
+                TestSupport.assertEquals(TEST,
+                    TileData.getType(map[index]) == Ilk.MY_ANT, engine.isMine(ant),
+                    "side of the ant at " + at);
+            }
+        }
+    }
+}
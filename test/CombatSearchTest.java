@@ -0,0 +1,217 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares {@link CombatSearch} with a brute force search on small engagements. The brute force
+ * moves the ants on a copy of the map, tries every combination of our ants staying or stepping
+ * to a free tile, and scores each against both enemy replies with
+ * {@link Ants#simulateBattleForAnt}. Without a deadline the search must find the same best score
+ * and the same stay score, and its moves must reach the best score with as few ants moving as
+ * the brute force needs.
+ */
+public class CombatSearchTest {
+    private static final String TEST = "CombatSearchTest";
+
+    private static final int TRIALS = 400;
+
+    private static final int MAX_MINE = 4;
+
+    private static final int MAX_ENEMIES = 4;
+
+    /**
+     * Runs the comparison.
+     *
+     * @param args optional seed of the random maps
+     */
+    public static void main(String[] args) {
+        Random random = TestSupport.random(args);
+        int wins = 0;
+        for (int trial = 0; trial < TRIALS; trial++) {
+            Ants ants = TestSupport.randomMap(random, 12, 12, 0.1);
+            TestSupport.addAnts(ants, random, 2 + random.nextInt(10), 2 + random.nextInt(2));
+            List<Tile> mine = pick(ants.getMyAnts(), random, MAX_MINE);
+            List<Tile> enemies = pick(ants.getEnemyAnts(), random, MAX_ENEMIES);
+            String context = "trial " + trial + " on a " + ants.getRows() + "x" + ants.getCols()
+                + " map with " + mine + " against " + enemies;
+
+            CombatEngine engine = ants.predictCombat(new HashMap<Tile, Tile>());
+            CombatSearch search = new CombatSearch(ants, engine, mine, enemies);
+            search.search(Long.MAX_VALUE);
+            TestSupport.assertEquals(TEST, 0, engine.getMoveCount(), "moves left in " + context);
+            ants.releaseCombatEngine(engine);
+
+            BruteForce brute = new BruteForce(ants, mine, enemies);
+            brute.search(0);
+            TestSupport.assertEquals(TEST, brute.stayScore, search.getStayScore(),
+                "stay score in " + context);
+            TestSupport.assertEquals(TEST, brute.bestScore, search.getBestScore(),
+                "best score in " + context);
+
+            List<Tile> moved = new ArrayList<Tile>();
+            int moves = 0;
+            for (int i = 0; i < mine.size(); i++) {
+                Aim move = search.getMove(i);
+                moved.add(move == null ? mine.get(i) : ants.getTile(mine.get(i), move));
+                if (move != null) {
+                    moves++;
+                }
+            }
+            TestSupport.assertEquals(TEST, brute.bestMoved, moves, "ants moved in " + context);
+            TestSupport.assertEquals(TEST, brute.bestScore, brute.evaluate(moved),
+                "score of the moves " + moved + " in " + context);
+            if (search.getBestScore() > search.getStayScore()) {
+                wins++;
+            }
+        }
+        TestSupport.assertTrue(TEST, wins > 0, "no engagement was better than staying");
+        TestSupport.pass(TEST, TRIALS + " engagements, " + wins + " better than staying");
+    }
+
+    /**
+     * Picks up to <code>max</code> of the ants, in a random order.
+     */
+    private static List<Tile> pick(Iterable<Tile> ants, Random random, int max) {
+        List<Tile> picked = new ArrayList<Tile>();
+        for (Tile ant : ants) {
+            picked.add(ant);
+        }
+        Collections.sort(picked);
+        Collections.shuffle(picked, random);
+        int count = Math.min(max, random.nextInt(picked.size() + 1));
+        return new ArrayList<Tile>(picked.subList(0, count));
+    }
+
+    /**
+     * Tries every combination of moves on a copy of the map.
+     */
+    private static final class BruteForce {
+        private final Ants ants;
+
+        private final List<Tile> mine;
+
+        private final List<Tile> enemies;
+
+        private final short[] map;
+
+        private final List<Tile> positions = new ArrayList<Tile>();
+
+        private int stayScore;
+
+        private int bestScore = Integer.MIN_VALUE;
+
+        private int bestMoved;
+
+        private int moved;
+
+        private boolean first = true;
+
+        BruteForce(Ants ants, List<Tile> mine, List<Tile> enemies) {
+            this.ants = ants;
+            this.mine = mine;
+            this.enemies = enemies;
+            map = ants.copyMap();
+        }
+
+        void search(int i) {
+            if (i == mine.size()) {
+                int score = evaluate(positions);
+                if (first) {
+                    stayScore = score;
+                    first = false;
+                }
+                if (score > bestScore || (score == bestScore && moved < bestMoved)) {
+                    bestScore = score;
+                    bestMoved = moved;
+                }
+                return;
+            }
+            Tile ant = mine.get(i);
+            positions.add(ant);
+            search(i + 1);
+            positions.remove(i);
+            for (Aim direction : Aim.values()) {
+                Tile target = ants.getTile(ant, direction);
+                if (!ants.getIlk(target).isUnoccupied()
+                    || TileData.isAnt(map[ants.getIndex(target)])) {
+                    continue;
+                }
+                move(ant, target);
+                positions.add(target);
+                moved++;
+                search(i + 1);
+                moved--;
+                positions.remove(i);
+                move(target, ant);
+            }
+        }
+
+        /**
+         * Scores our ants at the given tiles against the worse of the two enemy replies.
+         */
+        int evaluate(List<Tile> myPositions) {
+            short[] moved = ants.copyMap();
+            for (int i = 0; i < mine.size(); i++) {
+                moved[ants.getIndex(mine.get(i))] = TileData.LAND;
+            }
+            for (int i = 0; i < mine.size(); i++) {
+                moved[ants.getIndex(myPositions.get(i))] = ants.getTileData(mine.get(i));
+            }
+            List<Tile> enemyPositions = new ArrayList<Tile>(enemies);
+            int stay = score(moved, myPositions, enemyPositions);
+            for (int e = 0; e < enemyPositions.size() && !myPositions.isEmpty(); e++) {
+                Tile enemy = enemyPositions.get(e);
+                Tile nearest = null;
+                int nearestDistance = Integer.MAX_VALUE;
+                for (Tile ant : myPositions) {
+                    if (ants.getDistance(enemy, ant) < nearestDistance) {
+                        nearest = ant;
+                        nearestDistance = ants.getDistance(enemy, ant);
+                    }
+                }
+                Tile step = null;
+                for (Aim direction : Aim.values()) {
+                    Tile target = ants.getTile(enemy, direction);
+                    int distance = ants.getDistance(target, nearest);
+                    short data = moved[ants.getIndex(target)];
+                    if (distance < nearestDistance && TileData.getType(data).isPassable()
+                        && !TileData.isAnt(data)) {
+                        step = target;
+                        nearestDistance = distance;
+                    }
+                }
+                if (step != null) {
+                    moved[ants.getIndex(step)] = moved[ants.getIndex(enemy)];
+                    moved[ants.getIndex(enemy)] = TileData.LAND;
+                    enemyPositions.set(e, step);
+                }
+            }
+            return Math.min(stay, score(moved, myPositions, enemyPositions));
+        }
+
+        private int score(short[] moved, List<Tile> myPositions, List<Tile> enemyPositions) {
+            HashMap<Tile, List<Tile>> nearbyEnemies =
+                ants.generateNearbyEnemies(moved, ants.getAttackRadius2());
+            int friendDeaths = 0;
+            int enemyDeaths = 0;
+            for (Tile ant : myPositions) {
+                if (!ants.simulateBattleForAnt(ant, nearbyEnemies)) {
+                    friendDeaths++;
+                }
+            }
+            for (Tile enemy : enemyPositions) {
+                if (!ants.simulateBattleForAnt(enemy, nearbyEnemies)) {
+                    enemyDeaths++;
+                }
+            }
+            return enemyDeaths - (friendDeaths * 2);
+        }
+
+        private void move(Tile from, Tile to) {
+            map[ants.getIndex(to)] = map[ants.getIndex(from)];
+            map[ants.getIndex(from)] = TileData.LAND;
+        }
+    }
+}
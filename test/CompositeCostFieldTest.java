@@ -0,0 +1,64 @@
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Compares the lazily evaluated {@link CompositeCostField} with a plain weighted sum of its cost
+ * maps. The same field is given new maps and multipliers several times, as it is every turn, and
+ * each time some tiles are read twice, so that values cached for earlier inputs would show.
+ */
+public class CompositeCostFieldTest {
+    private static final String TEST = "CompositeCostFieldTest";
+
+    private static final int TRIALS = 200;
+
+    private static final int TURNS = 6;
+
+    /**
+     * Runs the comparison.
+     *
+     * @param args optional seed of the random maps
+     */
+    public static void main(String[] args) {
+        Random random = TestSupport.random(args);
+        for (int trial = 0; trial < TRIALS; trial++) {
+            Ants ants = TestSupport.randomMap(random, 40, 60, 0);
+            CompositeCostField field = new CompositeCostField(ants.getRows(), ants.getCols());
+            TestSupport.assertField(TEST, new int[ants.getRows()][ants.getCols()], field,
+                "field without inputs in trial " + trial);
+            for (int turn = 0; turn < TURNS; turn++) {
+                int[][][] costMaps = new int[random.nextInt(5)][][];
+                int[] weights = new int[costMaps.length];
+                for (int i = 0; i < costMaps.length; i++) {
+                    costMaps[i] = TestSupport.randomGrid(ants, random, 0, 1000);
+                    weights[i] = random.nextInt(5) - 2;
+                }
+                field.set(costMaps, weights);
+                int[][] expected = weightedSum(ants, costMaps, weights);
+                String context = "multipliers " + Arrays.toString(weights) + " in turn " + turn
+                    + " of trial " + trial;
+
+                // a few tiles first, as ants read them, then every tile.
+                for (int i = random.nextInt(20); i > 0; i--) {
+                    Tile tile = TestSupport.randomTile(ants, random);
+                    TestSupport.assertEquals(TEST, expected[tile.getRow()][tile.getCol()],
+                        field.get(tile), "tile " + tile.getRow() + "," + tile.getCol()
+                        + " with " + context);
+                }
+                TestSupport.assertField(TEST, expected, field, context);
+            }
+        }
+        TestSupport.pass(TEST, TRIALS + " trials of " + TURNS + " turns");
+    }
+
+    private static int[][] weightedSum(Ants ants, int[][][] costMaps, int[] weights) {
+        int[][] sum = new int[ants.getRows()][ants.getCols()];
+        for (int i = 0; i < costMaps.length; i++) {
+            for (int row = 0; row < ants.getRows(); row++) {
+                for (int col = 0; col < ants.getCols(); col++) {
+                    sum[row][col] += costMaps[i][row][col] * weights[i];
+                }
+            }
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,102 @@
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Compares the composite builders with a plain weighted sum. The kernels of
+ * {@link CompositeBuilder} and of the builder picked by {@link CompositeBuilder#create()} are run
+ * on flat arrays of every length up to several vector widths, and
+ * {@link Ants#constructCompositeMap(int[][][], int[], int[][])} on random maps. Multipliers
+ * include 0, which skips an input, 1, which copies it, and negative values. Destinations start out
+ * with left over values, as grids from the cost map pool do. "make vector" runs the same test
+ * with the Vector API builder.
+ */
+public class CompositeMapTest {
+    private static final String TEST = "CompositeMapTest";
+
+    private static final int TRIALS = 300;
+
+    /**
+     * Runs the comparison.
+     *
+     * @param args optional seed of the random maps
+     */
+    public static void main(String[] args) {
+        Random random = TestSupport.random(args);
+        CompositeBuilder created = CompositeBuilder.create();
+        CompositeBuilder[] builders = { new CompositeBuilder(), created };
+        int aliased = 0;
+        for (int trial = 0; trial < TRIALS; trial++) {
+            int length = random.nextInt(200);
+            int[][] inputs = new int[random.nextInt(5)][];
+            int[] weights = new int[inputs.length];
+            for (int i = 0; i < inputs.length; i++) {
+                inputs[i] = randomArray(random, length, 1000);
+                weights[i] = random.nextInt(5) - 2;
+            }
+            int[] expected = weightedSum(inputs, weights, length);
+            for (CompositeBuilder builder : builders) {
+                String context = builder.getClass().getName() + " with multipliers "
+                    + Arrays.toString(weights) + " over " + length + " values in trial " + trial;
+                int[] destination = randomArray(random, length, Integer.MAX_VALUE);
+                builder.compose(inputs, weights, destination);
+                TestSupport.assertTrue(TEST, Arrays.equals(expected, destination), context);
+
+                // the first input with a multiplier other than 0 may be the destination.
+                for (int i = 0; i < inputs.length; i++) {
+                    if (weights[i] != 0) {
+                        int[][] sharing = inputs.clone();
+                        sharing[i] = inputs[i].clone();
+                        builder.compose(sharing, weights, sharing[i]);
+                        TestSupport.assertTrue(TEST, Arrays.equals(expected, sharing[i]),
+                            "destination shared with input " + i + " of " + context);
+                        aliased++;
+                        break;
+                    }
+                }
+            }
+
+            Ants ants = TestSupport.randomMap(random, 40, 120, 0);
+            int[][][] costMaps = new int[inputs.length][][];
+            for (int i = 0; i < costMaps.length; i++) {
+                costMaps[i] = TestSupport.randomGrid(ants, random, 0, 1000);
+            }
+            int[][] composite = TestSupport.randomGrid(ants, random, 0, Integer.MAX_VALUE - 1);
+            ants.constructCompositeMap(costMaps, weights, composite);
+            TestSupport.assertGrid(TEST, weightedSum(ants, costMaps, weights), composite,
+                "composite map with multipliers " + Arrays.toString(weights) + " in trial "
+                + trial);
+        }
+        TestSupport.assertTrue(TEST, aliased > 0, "no destination was shared with an input");
+        TestSupport.pass(TEST, TRIALS + " trials, builder " + created.getClass().getName());
+    }
+
+    private static int[] weightedSum(int[][] inputs, int[] weights, int length) {
+        int[] sum = new int[length];
+        for (int i = 0; i < inputs.length; i++) {
+            for (int j = 0; j < length; j++) {
+                sum[j] += inputs[i][j] * weights[i];
+            }
+        }
+        return sum;
+    }
+
+    private static int[][] weightedSum(Ants ants, int[][][] costMaps, int[] weights) {
+        int[][] sum = new int[ants.getRows()][ants.getCols()];
+        for (int i = 0; i < costMaps.length; i++) {
+            for (int row = 0; row < ants.getRows(); row++) {
+                for (int col = 0; col < ants.getCols(); col++) {
+                    sum[row][col] += costMaps[i][row][col] * weights[i];
+                }
+            }
+        }
+        return sum;
+    }
+
+    private static int[] randomArray(Random random, int length, int bound) {
+        int[] values = new int[length];
+        for (int i = 0; i < length; i++) {
+            values[i] = random.nextInt(bound);
+        }
+        return values;
+    }
+}
@@ -0,0 +1,80 @@
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Compares the distances repaired by {@link DistanceField} with a full breadth-first search from
+ * the same sources. Each trial plays a series of turns on a random map, in which sources move,
+ * disappear and appear, and tiles turn into water, as ants and vision do during a game.
+ */
+public class DistanceFieldTest {
+    private static final String TEST = "DistanceFieldTest";
+
+    private static final int TRIALS = 300;
+
+    private static final int TURNS = 30;
+
+    /**
+     * Runs the comparison.
+     *
+     * @param args optional seed of the random maps
+     */
+    public static void main(String[] args) {
+        Random random = TestSupport.random(args);
+        int repairs = 0;
+        int recomputes = 0;
+        for (int trial = 0; trial < TRIALS; trial++) {
+            Ants ants = TestSupport.randomMap(random, 48, 48, 0.15);
+            DistanceField field = ants.createDistanceField();
+            Set<Tile> sources = new HashSet<Tile>(
+                TestSupport.randomTiles(ants, random, random.nextInt(30)));
+            for (int turn = 0; turn < TURNS; turn++) {
+                String context = "turn " + turn + " of trial " + trial + " on a " + ants.getRows()
+                    + "x" + ants.getCols() + " map";
+                ants.updateDistanceField(field, sources);
+                TestSupport.assertField(TEST, ants.bfs(new ArrayList<Tile>(sources), null), field,
+                    context);
+                TestSupport.assertEquals(TEST, sources.size(), field.getSourceCount(),
+                    "sources in " + context);
+                sources = nextTurn(ants, sources, random);
+            }
+            repairs += field.getRepairs();
+            recomputes += field.getRecomputes();
+        }
+        TestSupport.assertTrue(TEST, repairs > 0, "no update was repaired");
+        TestSupport.pass(TEST, TRIALS + " trials, " + repairs + " repairs, " + recomputes
+            + " recomputes");
+    }
+
+    /**
+     * Moves, drops and adds sources, and turns tiles outside of them into water.
+     */
+    private static Set<Tile> nextTurn(Ants ants, Set<Tile> sources, Random random) {
+        Set<Tile> next = new HashSet<Tile>();
+        for (Tile source : sources) {
+            if (random.nextInt(10) == 0) {
+                continue;
+            }
+            Tile moved = ants.getTile(source, Aim.values()[random.nextInt(Aim.values().length)]);
+            if (random.nextInt(3) == 0 && ants.getIlk(moved).isPassable()) {
+                next.add(moved);
+            } else {
+                next.add(source);
+            }
+        }
+        for (int i = random.nextInt(3); i > 0; i--) {
+            Tile tile = TestSupport.randomTile(ants, random);
+            if (ants.getIlk(tile).isPassable()) {
+                next.add(tile);
+            }
+        }
+        for (int i = random.nextInt(4); i > 0; i--) {
+            Tile tile = TestSupport.randomTile(ants, random);
+            if (!next.contains(tile)) {
+                ants.update(Ilk.WATER, tile);
+            }
+        }
+        return next;
+    }
+}
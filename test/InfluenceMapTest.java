@@ -0,0 +1,83 @@
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Compares the row window sums of {@link InfluenceMap} with counting the ants at every offset of
+ * {@link Ants#getTilesFromRadius(int)}, for the attack radius and the extended attack radius, on
+ * maps down to a single tile, smaller than either disk. The counts read through
+ * {@link Ants#getAttackInfluence()} and {@link Ants#getExtendedAttackInfluence()} must follow
+ * the ants as they are added and cleared.
+ */
+public class InfluenceMapTest {
+    private static final String TEST = "InfluenceMapTest";
+
+    private static final int TRIALS = 300;
+
+    /**
+     * Runs the comparison.
+     *
+     * @param args optional seed of the random maps
+     */
+    public static void main(String[] args) {
+        Random random = TestSupport.random(args);
+        int small = 0;
+        for (int trial = 0; trial < TRIALS; trial++) {
+            Ants ants = TestSupport.randomMap(random, 30, 30, 0.1);
+            int cells = ants.getRows() * ants.getCols();
+            int players = 1 + random.nextInt(4);
+            String context = "trial " + trial + " on a " + ants.getRows() + "x" + ants.getCols()
+                + " map";
+            if (Math.min(ants.getRows(), ants.getCols()) < 9) {
+                small++;
+            }
+
+            for (int turn = 0; turn < 3; turn++) {
+                if (turn == 2) {
+                    ants.clearEnemyAnts();
+                }
+                TestSupport.addAnts(ants, random, random.nextInt(1 + cells / 4), players);
+                short[] map = ants.copyMap();
+                int radius2 = ants.getAttackRadius2();
+                int extendedRadius2 = ants.getExtendedAttackRadius2();
+
+                InfluenceMap influence = new InfluenceMap(ants.getRows(), ants.getCols(), radius2);
+                influence.compute(map);
+                compare(ants, map, radius2, influence, "attack radius in turn " + turn + " of "
+                    + context);
+                compare(ants, map, radius2, ants.getAttackInfluence(),
+                    "cached attack radius in turn " + turn + " of " + context);
+                compare(ants, map, extendedRadius2, ants.getExtendedAttackInfluence(),
+                    "cached extended attack radius in turn " + turn + " of " + context);
+            }
+        }
+        TestSupport.assertTrue(TEST, small > 0, "no map was smaller than the extended disk");
+        TestSupport.pass(TEST, TRIALS + " trials, " + small + " maps smaller than the disks");
+    }
+
+    private static void compare(Ants ants, short[] map, int radius2, InfluenceMap influence,
+            String context) {
+        int players = 1;
+        for (short data : map) {
+            if (TileData.isAnt(data)) {
+                players = Math.max(players, TileData.getOwner(data) + 1);
+            }
+        }
+        TestSupport.assertEquals(TEST, players, influence.getPlayers(), "players, " + context);
+        Set<Tile> offsets = ants.getTilesFromRadius(radius2);
+        for (int index = 0; index < map.length; index++) {
+            Tile tile = ants.getTile(index);
+            int[] counts = new int[players];
+            for (Tile offset : offsets) {
+                short data = map[ants.getIndex(ants.getTile(tile, offset))];
+                if (TileData.isAnt(data)) {
+                    counts[TileData.getOwner(data)]++;
+                }
+            }
+            for (int player = 0; player < players; player++) {
+                TestSupport.assertEquals(TEST, counts[player],
+                    influence.getInfluence(player)[index], "ants of player " + player + " at "
+                    + tile.getRow() + "," + tile.getCol() + ", " + context);
+            }
+        }
+    }
+}
@@ -0,0 +1,63 @@
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares the labels and costs of {@link Ants#labeledBfs(List, int[])} with a search from every
+ * source on its own. Every reached tile must carry the distance to its nearest source, and when
+ * several sources are nearest, the one given first; the search visits the sources in order and
+ * the first one to reach a tile keeps it.
+ */
+public class LabeledBfsTest {
+    private static final String TEST = "LabeledBfsTest";
+
+    private static final int TRIALS = 300;
+
+    /**
+     * Runs the comparison.
+     *
+     * @param args optional seed of the random maps
+     */
+    public static void main(String[] args) {
+        Random random = TestSupport.random(args);
+        int ties = 0;
+        for (int trial = 0; trial < TRIALS; trial++) {
+            Ants ants = TestSupport.randomMap(random, 30, 40, 0.25);
+            int cells = ants.getRows() * ants.getCols();
+            List<Tile> sources = TestSupport.randomTiles(ants, random, random.nextInt(10));
+            int[] labels = new int[cells];
+            int[][] costs = ants.labeledBfs(sources, labels);
+
+            int[][] distances = new int[sources.size()][];
+            for (int i = 0; i < sources.size(); i++) {
+                distances[i] = TestSupport.distances(ants, sources.get(i));
+            }
+            for (int index = 0; index < cells; index++) {
+                int nearest = -1;
+                int nearestCount = 0;
+                for (int i = 0; i < sources.size(); i++) {
+                    int distance = distances[i][index];
+                    if (distance == -1) {
+                        continue;
+                    }
+                    if (nearest == -1 || distance < distances[nearest][index]) {
+                        nearest = i;
+                        nearestCount = 1;
+                    } else if (distance == distances[nearest][index]) {
+                        nearestCount++;
+                    }
+                }
+                if (nearestCount > 1) {
+                    ties++;
+                }
+                Tile tile = ants.getTile(index);
+                String context = "tile " + tile.getRow() + "," + tile.getCol() + " in trial " + trial;
+                TestSupport.assertEquals(TEST, nearest, labels[index], "label of " + context);
+                int cost = nearest == -1 ? 0 : distances[nearest][index] + 1;
+                TestSupport.assertEquals(TEST, cost, costs[tile.getRow()][tile.getCol()],
+                    "cost of " + context);
+            }
+        }
+        TestSupport.assertTrue(TEST, ties > 0, "no tile had more than one nearest source");
+        TestSupport.pass(TEST, TRIALS + " trials, " + ties + " tiles with tied sources");
+    }
+}
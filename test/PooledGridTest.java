@@ -0,0 +1,67 @@
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Checks that every producer of pooled cost maps writes every cell of the grid it is handed. The
+ * pool poisons the grids it hands out, so a cell a producer skips still holds
+ * {@link CostMapPool#POISON} instead of a cost from an earlier turn. Maps include ones with no
+ * sources and ones with little land, where searches reach few tiles.
+ */
+public class PooledGridTest {
+    private static final String TEST = "PooledGridTest";
+
+    private static final int TRIALS = 200;
+
+    /**
+     * Runs the checks.
+     *
+     * @param args optional seed of the random maps
+     */
+    public static void main(String[] args) {
+        Random random = TestSupport.random(args);
+        for (int trial = 0; trial < TRIALS; trial++) {
+            Ants ants = TestSupport.randomMap(random, 40, 60, random.nextDouble());
+            ants.getCostMapPool().setPoisoned(true);
+            String context = "trial " + trial + " on a " + ants.getRows() + "x" + ants.getCols()
+                + " map";
+            for (int turn = 0; turn < 2; turn++) {
+                ants.releaseCostMaps();
+                List<Tile> sources = TestSupport.randomTiles(ants, random, random.nextInt(8));
+                int[][] weights = TestSupport.randomGrid(ants, random, 0, 20);
+                int[] indices = new int[sources.size()];
+                for (int i = 0; i < indices.length; i++) {
+                    indices[i] = ants.getIndex(sources.get(i));
+                }
+                Tile start = TestSupport.randomTile(ants, random);
+                int[] labels = new int[ants.getRows() * ants.getCols()];
+
+                check(ants.bfs(sources, null), "bfs of a list in " + context);
+                check(ants.bfs(new HashSet<Tile>(sources), null), "bfs of a set in " + context);
+                check(ants.bfs(start, null), "bfs of a tile in " + context);
+                check(ants.bfs(indices, indices.length, null), "bfs of indices in " + context);
+                check(ants.bfs(sources, weights, false), "weighted bfs in " + context);
+                check(ants.weightedBfs(sources, weights), "weightedBfs in " + context);
+                check(ants.labeledBfs(sources, labels), "labeledBfs in " + context);
+                check(ants.combatBfs(new ArrayList<Tile>(sources), null),
+                    "combatBfs in " + context);
+                int[][] composite = ants.constructCompositeMap(
+                    new int[][][] { ants.bfs(sources, null), weights }, new int[] { 2, -1 });
+                check(composite, "composite map in " + context);
+            }
+        }
+        TestSupport.pass(TEST, TRIALS + " trials");
+    }
+
+    private static void check(int[][] grid, String context) {
+        for (int row = 0; row < grid.length; row++) {
+            for (int col = 0; col < grid[row].length; col++) {
+                if (grid[row][col] == CostMapPool.POISON) {
+                    TestSupport.fail(TEST, context + ": cell " + row + "," + col
+                        + " was not written");
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,83 @@
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * Compares the bucket queue search of {@link Ants#weightedBfs(List, int[][])} with a plain
+ * Dijkstra search over a priority queue. Entering a tile costs 1 + its weight, sources cost 1 and
+ * unreached tiles 0. Maps with a negative weight must fall back to the plain breadth-first search
+ * of {@link Ants#bfs(List, int[][], boolean)}.
+ */
+public class ShortestPathsTest {
+    private static final String TEST = "ShortestPathsTest";
+
+    private static final int TRIALS = 300;
+
+    private static final int MAX_WEIGHT = 40;
+
+    /**
+     * Runs the comparison.
+     *
+     * @param args optional seed of the random maps
+     */
+    public static void main(String[] args) {
+        Random random = TestSupport.random(args);
+        int fallbacks = 0;
+        for (int trial = 0; trial < TRIALS; trial++) {
+            Ants ants = TestSupport.randomMap(random, 40, 60, 0.2);
+            List<Tile> sources = TestSupport.randomTiles(ants, random, random.nextInt(8));
+            int[][] weights = TestSupport.randomGrid(ants, random, 0, random.nextInt(MAX_WEIGHT));
+            String context = "trial " + trial + " on a " + ants.getRows() + "x" + ants.getCols()
+                + " map";
+            TestSupport.assertGrid(TEST, dijkstra(ants, sources, weights),
+                ants.weightedBfs(sources, weights), context);
+
+            if (random.nextInt(4) == 0) {
+                Tile tile = TestSupport.randomTile(ants, random);
+                weights[tile.getRow()][tile.getCol()] = -1 - random.nextInt(3);
+                TestSupport.assertGrid(TEST, ants.bfs(sources, weights, false),
+                    ants.weightedBfs(sources, weights), "negative weight in " + context);
+                fallbacks++;
+            }
+        }
+        TestSupport.pass(TEST, TRIALS + " trials, " + fallbacks + " with negative weights");
+    }
+
+    /**
+     * Reference search: Dijkstra over a priority queue of (cost, tile) pairs.
+     */
+    private static int[][] dijkstra(Ants ants, List<Tile> sources, int[][] weights) {
+        int[][] costs = new int[ants.getRows()][ants.getCols()];
+        PriorityQueue<long[]> open = new PriorityQueue<long[]>(11, new Comparator<long[]>() {
+            @Override
+            public int compare(long[] a, long[] b) {
+                return Long.compare(a[0], b[0]);
+            }
+        });
+        for (Tile source : sources) {
+            costs[source.getRow()][source.getCol()] = 1;
+            open.add(new long[] { 1, ants.getIndex(source) });
+        }
+        while (!open.isEmpty()) {
+            long[] entry = open.poll();
+            Tile tile = ants.getTile((int) entry[1]);
+            if (costs[tile.getRow()][tile.getCol()] != entry[0]) {
+                continue;
+            }
+            for (Aim direction : Aim.values()) {
+                Tile next = ants.getTile(tile, direction);
+                if (!ants.getIlk(next).isPassable()) {
+                    continue;
+                }
+                int cost = (int) entry[0] + 1 + weights[next.getRow()][next.getCol()];
+                int current = costs[next.getRow()][next.getCol()];
+                if (current == 0 || cost < current) {
+                    costs[next.getRow()][next.getCol()] = cost;
+                    open.add(new long[] { cost, ants.getIndex(next) });
+                }
+            }
+        }
+        return costs;
+    }
+}
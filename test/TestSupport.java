@@ -0,0 +1,287 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Helpers shared by the randomized tests: random maps to run the kernels on, and reporting of the
+ * outcome. A failed check prints what differed and exits with status 1, so that make stops.
+ */
+public final class TestSupport {
+    /** View radius of the game settings used for the test maps. */
+    public static final int VIEW_RADIUS2 = 77;
+
+    /** Attack radius of the game settings used for the test maps. */
+    public static final int ATTACK_RADIUS2 = 5;
+
+    /** Spawn radius of the game settings used for the test maps. */
+    public static final int SPAWN_RADIUS2 = 1;
+
+    private TestSupport() {
+    }
+
+    /**
+     * Creates the random source of a test.
+     *
+     * @param args arguments of the test, whose first one is an optional seed
+     *
+     * @return random source seeded with the given seed, or with 1
+     */
+    public static Random random(String[] args) {
+        return new Random(args.length > 0 ? Long.parseLong(args[0]) : 1);
+    }
+
+    /**
+     * Creates an empty map of land with the test game settings.
+     *
+     * @param rows map height
+     * @param cols map width
+     *
+     * @return game state of the map
+     */
+    public static Ants newAnts(int rows, int cols) {
+        return new Ants(0, 0, rows, cols, 0, VIEW_RADIUS2, ATTACK_RADIUS2, SPAWN_RADIUS2);
+    }
+
+    /**
+     * Creates a map of random size with some of its tiles turned into water.
+     *
+     * @param random random source
+     * @param maxRows largest map height
+     * @param maxCols largest map width
+     * @param waterShare share of the tiles picked for water, between 0 and 1
+     *
+     * @return game state of the map
+     */
+    public static Ants randomMap(Random random, int maxRows, int maxCols, double waterShare) {
+        Ants ants = newAnts(1 + random.nextInt(maxRows), 1 + random.nextInt(maxCols));
+        addWater(ants, random, (int) (ants.getRows() * ants.getCols() * waterShare));
+        return ants;
+    }
+
+    /**
+     * Turns random tiles into water. A tile may be picked more than once.
+     *
+     * @param ants game state
+     * @param random random source
+     * @param count number of tiles to pick
+     */
+    public static void addWater(Ants ants, Random random, int count) {
+        for (int i = 0; i < count; i++) {
+            ants.update(Ilk.WATER, randomTile(ants, random));
+        }
+    }
+
+    /**
+     * Places ants of random players on random land tiles. Player 0 is us, the others are enemies.
+     *
+     * @param ants game state
+     * @param random random source
+     * @param count number of tiles to pick; picks which are not land are skipped
+     * @param players number of players, at least 1
+     */
+    public static void addAnts(Ants ants, Random random, int count, int players) {
+        for (int i = 0; i < count; i++) {
+            Tile tile = randomTile(ants, random);
+            if (ants.getIlk(tile) != Ilk.LAND) {
+                continue;
+            }
+            int owner = random.nextInt(players);
+            ants.update(owner == 0 ? Ilk.MY_ANT : Ilk.ENEMY_ANT, tile, owner);
+        }
+    }
+
+    /**
+     * Moves some of our ants one step to free land tiles, as orders are given. No two ants move to
+     * the same tile and no ant moves onto a tile an ant stands on now.
+     *
+     * @param ants game state
+     * @param random random source
+     *
+     * @return orders, from the new tile of each moved ant to its current tile
+     */
+    public static Map<Tile, Tile> randomOrders(Ants ants, Random random) {
+        List<Tile> myAnts = new ArrayList<Tile>(ants.getMyAnts());
+        Collections.sort(myAnts);
+        Map<Tile, Tile> orders = new HashMap<Tile, Tile>();
+        for (Tile ant : myAnts) {
+            if (random.nextInt(3) == 0) {
+                continue;
+            }
+            Tile target = ants.getTile(ant, Aim.values()[random.nextInt(Aim.values().length)]);
+            if (ants.getIlk(target) == Ilk.LAND && !orders.containsKey(target)) {
+                orders.put(target, ant);
+            }
+        }
+        return orders;
+    }
+
+    /**
+     * Picks a random tile of the map.
+     *
+     * @param ants game state
+     * @param random random source
+     *
+     * @return tile anywhere on the map
+     */
+    public static Tile randomTile(Ants ants, Random random) {
+        return ants.getTile(random.nextInt(ants.getRows()), random.nextInt(ants.getCols()));
+    }
+
+    /**
+     * Picks random tiles of the map, which may repeat.
+     *
+     * @param ants game state
+     * @param random random source
+     * @param count number of tiles to pick
+     *
+     * @return tiles in the order they were picked
+     */
+    public static List<Tile> randomTiles(Ants ants, Random random, int count) {
+        List<Tile> tiles = new ArrayList<Tile>();
+        for (int i = 0; i < count; i++) {
+            tiles.add(randomTile(ants, random));
+        }
+        return tiles;
+    }
+
+    /**
+     * Fills a grid the size of the map with random values.
+     *
+     * @param ants game state
+     * @param random random source
+     * @param min smallest value
+     * @param max largest value
+     *
+     * @return grid of values from <code>min</code> to <code>max</code>
+     */
+    public static int[][] randomGrid(Ants ants, Random random, int min, int max) {
+        int[][] grid = new int[ants.getRows()][ants.getCols()];
+        for (int[] row : grid) {
+            for (int col = 0; col < row.length; col++) {
+                row[col] = min + random.nextInt(max - min + 1);
+            }
+        }
+        return grid;
+    }
+
+    /**
+     * Counts the steps from one tile to every other with a plain breadth-first search. The start
+     * tile is left even when it is water, but no water is entered.
+     *
+     * @param ants game state
+     * @param start tile the steps are counted from
+     *
+     * @return steps to every tile, by flat map index, or -1 where it cannot be reached
+     */
+    public static int[] distances(Ants ants, Tile start) {
+        int[] distances = new int[ants.getRows() * ants.getCols()];
+        Arrays.fill(distances, -1);
+        ArrayDeque<Tile> open = new ArrayDeque<Tile>();
+        distances[ants.getIndex(start)] = 0;
+        open.add(start);
+        while (!open.isEmpty()) {
+            Tile tile = open.poll();
+            for (Aim direction : Aim.values()) {
+                Tile next = ants.getTile(tile, direction);
+                int index = ants.getIndex(next);
+                if (distances[index] == -1 && ants.getIlk(next).isPassable()) {
+                    distances[index] = distances[ants.getIndex(tile)] + 1;
+                    open.add(next);
+                }
+            }
+        }
+        return distances;
+    }
+
+    /**
+     * Checks that two grids hold the same values.
+     *
+     * @param test name of the test
+     * @param expected grid of the reference version
+     * @param actual grid of the kernel under test
+     * @param context what was being compared, for the failure message
+     */
+    public static void assertGrid(String test, int[][] expected, int[][] actual, String context) {
+        for (int row = 0; row < expected.length; row++) {
+            for (int col = 0; col < expected[row].length; col++) {
+                if (expected[row][col] != actual[row][col]) {
+                    fail(test, context + ": expected " + expected[row][col] + " at " + row + ","
+                        + col + " but got " + actual[row][col]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks that a cost field reads the same costs as a grid.
+     *
+     * @param test name of the test
+     * @param expected grid of the reference version
+     * @param actual field under test
+     * @param context what was being compared, for the failure message
+     */
+    public static void assertField(String test, int[][] expected, CostField actual,
+            String context) {
+        for (int row = 0; row < expected.length; row++) {
+            for (int col = 0; col < expected[row].length; col++) {
+                if (expected[row][col] != actual.get(row, col)) {
+                    fail(test, context + ": expected " + expected[row][col] + " at " + row + ","
+                        + col + " but got " + actual.get(row, col));
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks that two values are the same.
+     *
+     * @param test name of the test
+     * @param expected value of the reference version
+     * @param actual value of the kernel under test
+     * @param context what was being compared, for the failure message
+     */
+    public static void assertEquals(String test, Object expected, Object actual, String context) {
+        if (expected == null ? actual != null : !expected.equals(actual)) {
+            fail(test, context + ": expected " + expected + " but got " + actual);
+        }
+    }
+
+    /**
+     * Checks a condition.
+     *
+     * @param test name of the test
+     * @param condition condition which must hold
+     * @param context what was being checked, for the failure message
+     */
+    public static void assertTrue(String test, boolean condition, String context) {
+        if (!condition) {
+            fail(test, context);
+        }
+    }
+
+    /**
+     * Reports a failed check and stops the test.
+     *
+     * @param test name of the test
+     * @param message what went wrong
+     */
+    public static void fail(String test, String message) {
+        System.err.println(test + ": FAILED, " + message);
+        System.exit(1);
+    }
+
+    /**
+     * Reports that all checks of a test passed.
+     *
+     * @param test name of the test
+     * @param summary what was checked
+     */
+    public static void pass(String test, String summary) {
+        System.out.println(test + ": passed, " + summary);
+    }
+}